@@ -0,0 +1,96 @@
+package org.acme;
+
+import jakarta.ws.rs.core.UriInfo;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Objects the benchmarks need without a running application: a request URI, books and
+ * services wired by hand the same way the unit tests do it.
+ */
+final class Fixtures {
+
+    static final URI BASE_URI = URI.create("http://localhost:8080/");
+
+    private Fixtures() {
+    }
+
+    /**
+     * Only {@code getBaseUri} is used by the representations.
+     */
+    static UriInfo uriInfo() {
+        return (UriInfo) Proxy.newProxyInstance(UriInfo.class.getClassLoader(), new Class<?>[]{UriInfo.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getBaseUri")) {
+                        return BASE_URI;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    static List<Book> books(int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Book book = new Book("Book title " + i, "Author " + (i % 100), "Publisher " + (i % 10), 1950 + i % 75, i % 3 != 0);
+            book.id = (long) i + 1;
+            books.add(book);
+        }
+        return books;
+    }
+
+    static RateLimiterService rateLimiter(int requests, int windowSeconds) {
+        RateLimiterService service = new RateLimiterService();
+        service.config = new RateLimitConfig() {
+            @Override
+            public int requests() {
+                return requests;
+            }
+
+            @Override
+            public Window window() {
+                return () -> windowSeconds;
+            }
+
+            @Override
+            public Map<String, Integer> cost() {
+                return Map.of();
+            }
+
+            @Override
+            public Map<String, Tier> tier() {
+                return Map.of();
+            }
+
+            @Override
+            public Map<String, String> apiKeys() {
+                return Map.of();
+            }
+
+            @Override
+            public Optional<List<String>> trustedProxies() {
+                return Optional.empty();
+            }
+        };
+        service.init();
+        return service;
+    }
+
+    static IdempotencyService idempotency(long maxBytes) {
+        InMemoryIdempotencyStore memory = new InMemoryIdempotencyStore();
+        memory.ttlHours = 24;
+        memory.processingTtlSeconds = 300;
+        memory.maxBytes = maxBytes;
+        memory.init();
+
+        IdempotencyService service = new IdempotencyService();
+        service.storeType = "memory";
+        service.memory = memory;
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,102 @@
+package org.acme;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.BrotliOutputStream;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding cost of a search page in each negotiable format, uncompressed, gzipped and with
+ * brotli. {@code json-compact} is JSON with {@code Prefer: links=collection}, the fair
+ * comparison for protobuf, which always sends one item template instead of per-book links.
+ * Payload sizes are printed once per trial, next to the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FormatBenchmark {
+
+    @Param({"json", "json-compact", "cbor", "smile", "protobuf"})
+    String format;
+
+    @Param({"100", "1000"})
+    int pageSize;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private ObjectMapper mapper;
+    private SearchBookResponse page;
+    private BookLinks links;
+
+    // Netty's default brotli quality, which is what Vert.x compresses with
+    private final Encoder.Parameters brotli = new Encoder.Parameters().setQuality(4);
+
+    @Setup
+    public void setup() throws IOException {
+        Brotli4jLoader.ensureAvailability();
+        mapper = switch (format) {
+            case "cbor" -> json.copyWith(new CBORFactory());
+            case "smile" -> json.copyWith(new SmileFactory());
+            default -> json;
+        };
+        links = BookLinks.of(Fixtures.BASE_URI);
+        page = SearchBookResponse.from(Fixtures.books(pageSize), Fixtures.uriInfo(), null, "id", "asc", 1, pageSize,
+            10_000L, null, "json-compact".equals(format), BookFields.ALL);
+        System.out.printf("%n%s, %d books: %,d bytes, %,d gzipped, %,d brotli%n",
+            format, pageSize, encode().length, gzip().length, brotli().length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 * pageSize);
+        write(out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] gzip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * pageSize);
+        try (GZIPOutputStream compressed = new GZIPOutputStream(out)) {
+            write(compressed);
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] brotli() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * pageSize);
+        try (BrotliOutputStream compressed = new BrotliOutputStream(out, brotli)) {
+            write(compressed);
+        }
+        return out.toByteArray();
+    }
+
+    private void write(OutputStream out) throws IOException {
+        if ("protobuf".equals(format)) {
+            BookProtobuf.writeSearch(out, page, links);
+        } else {
+            mapper.writeValue(out, page);
+        }
+    }
+}
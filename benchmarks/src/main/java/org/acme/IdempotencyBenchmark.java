@@ -0,0 +1,66 @@
+package org.acme;
+
+import jakarta.ws.rs.core.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The in-memory idempotency path: claiming a fresh key (check and mark), storing its
+ * response, and replaying a completed key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(4)
+public class IdempotencyBenchmark {
+
+    private static final byte[] BODY =
+            "{\"id\":1,\"titulo\":\"Clean Code\",\"autor\":\"Robert Martin\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HASH = new byte[32];
+    private static final Supplier<byte[]> REQUEST_HASH = () -> HASH;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private IdempotencyService service;
+
+    @Setup
+    public void setup() {
+        // Small cap keeps the store evicting, as it would after hours of traffic
+        service = Fixtures.idempotency(16L * 1024 * 1024);
+        service.claim("replayed", REQUEST_HASH);
+        service.storeResponse("replayed", 201, BODY, HASH);
+    }
+
+    @Benchmark
+    public Response claimNewKey() {
+        return service.claim("key-" + sequence.incrementAndGet(), REQUEST_HASH);
+    }
+
+    @Benchmark
+    public void claimAndStore() {
+        String key = "key-" + sequence.incrementAndGet();
+        service.claim(key, REQUEST_HASH);
+        service.storeResponse(key, 201, BODY, HASH);
+    }
+
+    @Benchmark
+    public Response replayCompletedKey() {
+        return service.claim("replayed", REQUEST_HASH);
+    }
+}
@@ -0,0 +1,62 @@
+package org.acme;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code allowRequest} uncontended, with every thread on one hot key, and with threads
+ * spread over many keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RateLimiterBenchmark {
+
+    private static final int KEYS = 10_000;
+
+    private RateLimiterService service;
+    private String[] keys;
+
+    @Setup
+    public void setup() {
+        // Generous limit, so the allowed path is measured as much as the rejected one
+        service = Fixtures.rateLimiter(1_000_000, 1);
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "ip:10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean singleKey() {
+        return service.allowRequest("ip:10.0.0.1");
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean hotKeyContended() {
+        return service.allowRequest("ip:10.0.0.1");
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean manyKeysContended() {
+        return service.allowRequest(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+}
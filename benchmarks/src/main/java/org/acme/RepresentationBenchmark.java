@@ -0,0 +1,52 @@
+package org.acme;
+
+import jakarta.ws.rs.core.UriInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the HATEOAS views for one book and for a search page of ten.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RepresentationBenchmark {
+
+    private UriInfo uriInfo;
+    private Book book;
+    private List<Book> page;
+
+    @Setup
+    public void setup() {
+        uriInfo = Fixtures.uriInfo();
+        page = Fixtures.books(10);
+        book = page.get(0);
+    }
+
+    @Benchmark
+    public BookRepresentation bookRepresentation() {
+        return BookRepresentation.from(book, uriInfo);
+    }
+
+    /**
+     * Covers {@code buildLinks}, which is only reachable through {@code from}.
+     */
+    @Benchmark
+    public SearchBookResponse searchResponse() {
+        return SearchBookResponse.from(page, uriInfo, "title", "titulo", "asc", 2, 10, 1000L, "bmV4dA");
+    }
+}
@@ -0,0 +1,53 @@
+package org.acme;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of a list page, from entities to response bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int pageSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<Book> books;
+    private SearchBookResponse page;
+
+    @Setup
+    public void setup() {
+        books = Fixtures.books(pageSize);
+        page = SearchBookResponse.from(books, Fixtures.uriInfo(), null, "id", "asc", 1, pageSize, 10_000L, null);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] buildAndSerializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(
+                SearchBookResponse.from(books, Fixtures.uriInfo(), null, "id", "asc", 1, pageSize, 10_000L, null));
+    }
+}
@@ -0,0 +1,151 @@
+package org.acme;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Meters for the filters and the search endpoint, scraped from {@code /q/metrics}.
+ *
+ * Every counter is created up front and looked up by plain field or map access, so the
+ * request path never goes through the registry. Tags only carry bounded values (outcome,
+ * configured tier, search path); client ids, keys and query strings never become tags.
+ * Created at startup, so every meter is on {@code /q/metrics} before the first request.
+ */
+@Startup
+@ApplicationScoped
+public class ApiMetrics {
+
+    private static final String DEFAULT_TIER = "default";
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    RateLimitConfig rateLimitConfig;
+
+    @Inject
+    RateLimiterService rateLimiterService;
+
+    @Inject
+    IdempotencyService idempotencyService;
+
+    @Inject
+    RequestDeadlines deadlines;
+
+    private final Map<String, Counter> allowed = new HashMap<>();
+    private final Map<String, Counter> rejected = new HashMap<>();
+
+    private Counter idempotencyMiss;
+    private Counter idempotencyHit;
+    private Counter idempotencyConflict;
+    private Counter idempotencyMismatch;
+
+    private DistributionSummary indexedResults;
+    private DistributionSummary scannedResults;
+    private DistributionSummary unfilteredResults;
+    private DistributionSummary fullTextResults;
+    private DistributionSummary matches;
+
+    @PostConstruct
+    void init() {
+        rateLimitCounters(DEFAULT_TIER);
+        rateLimitConfig.tier().keySet().forEach(this::rateLimitCounters);
+        Gauge.builder("rate.limit.buckets", rateLimiterService, RateLimiterService::trackedClients)
+            .description("Live rate limit buckets, one per client and costly route")
+            .register(registry);
+
+        idempotencyMiss = idempotencyCounter("miss");
+        idempotencyHit = idempotencyCounter("hit");
+        idempotencyConflict = idempotencyCounter("conflict");
+        idempotencyMismatch = idempotencyCounter("mismatch");
+        Gauge.builder("idempotency.store.size", idempotencyService, IdempotencyService::size)
+            .description("Idempotency keys held in memory")
+            .register(registry);
+
+        FunctionCounter.builder("http.server.timeouts", deadlines, RequestDeadlines::timedOut)
+            .description("Requests answered with 504 after their deadline passed")
+            .register(registry);
+        Gauge.builder("http.server.deadlines.pending", deadlines, RequestDeadlines::pending)
+            .description("Request deadlines waiting on the timer wheel")
+            .register(registry);
+
+        indexedResults = searchResults("index");
+        scannedResults = searchResults("scan");
+        unfilteredResults = searchResults("none");
+        fullTextResults = searchResults("fulltext");
+        matches = DistributionSummary.builder("books.search.matches")
+            .description("Total matches reported by /books/search, when counted")
+            .register(registry);
+    }
+
+    public void rateLimit(String tier, boolean wasAllowed) {
+        Map<String, Counter> counters = wasAllowed ? allowed : rejected;
+        Counter counter = counters.get(tier == null ? DEFAULT_TIER : tier);
+        (counter != null ? counter : counters.get(DEFAULT_TIER)).increment();
+    }
+
+    public void idempotencyMiss() {
+        idempotencyMiss.increment();
+    }
+
+    /**
+     * Records the answer a duplicate request got instead of running the endpoint.
+     */
+    public void idempotencyReplay(int status) {
+        switch (status) {
+            case 409 -> idempotencyConflict.increment();
+            case 422 -> idempotencyMismatch.increment();
+            default -> idempotencyHit.increment();
+        }
+    }
+
+    /**
+     * @param path  how the filter was resolved: {@code index}, {@code scan}, {@code fulltext} or {@code none}
+     * @param total the reported total, or {@code null} when it was not counted
+     */
+    public void searchResults(String path, int pageSize, Long total) {
+        DistributionSummary results = switch (path) {
+            case "index" -> indexedResults;
+            case "scan" -> scannedResults;
+            case "fulltext" -> fullTextResults;
+            default -> unfilteredResults;
+        };
+        results.record(pageSize);
+        if (total != null) {
+            matches.record(total);
+        }
+    }
+
+    private void rateLimitCounters(String tier) {
+        allowed.put(tier, Counter.builder("rate.limit.requests")
+            .tag("tier", tier).tag("outcome", "allowed")
+            .register(registry));
+        rejected.put(tier, Counter.builder("rate.limit.requests")
+            .tag("tier", tier).tag("outcome", "rejected")
+            .register(registry));
+    }
+
+    private Counter idempotencyCounter(String outcome) {
+        return Counter.builder("idempotency.requests")
+            .description("POST requests carrying an Idempotency-Key, by outcome")
+            .tag("outcome", outcome)
+            .register(registry);
+    }
+
+    private DistributionSummary searchResults(String path) {
+        return DistributionSummary.builder("books.search.results")
+            .description("Books returned per /books/search page")
+            .tag("path", path)
+            .register(registry);
+    }
+}
@@ -0,0 +1,43 @@
+package org.acme;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchCreateResponse {
+    public int created;
+    public int failed;
+    public List<Item> items = new ArrayList<>();
+
+    public BatchCreateResponse() {
+    }
+
+    public void success(int index, Long id) {
+        items.add(new Item(index, 201, id, null));
+        created++;
+    }
+
+    public void failure(int index, int status, String error) {
+        items.add(new Item(index, status, null, error));
+        failed++;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Item {
+        public int index;
+        public int status;
+        public Long id;
+        public String error;
+
+        public Item() {
+        }
+
+        public Item(int index, int status, Long id, String error) {
+            this.index = index;
+            this.status = status;
+            this.id = id;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.acme;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * CBOR and Smile renderings of the book list and search responses.
+ *
+ * Both mappers are copies of the application's {@link ObjectMapper}, so the custom
+ * {@link BookRepresentationSerializer} and every other setting apply unchanged; only the
+ * encoding of the tokens differs. Field names repeat in every item, which Smile's shared
+ * name back-references and CBOR's short headers make cheap.
+ */
+@Provider
+@Produces({BookFormats.CBOR, BookFormats.SMILE})
+public class BinaryJacksonWriter implements MessageBodyWriter<Object> {
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    private ObjectMapper cbor;
+    private ObjectMapper smile;
+
+    @PostConstruct
+    void init() {
+        cbor = objectMapper.copyWith(new CBORFactory());
+        smile = objectMapper.copyWith(new SmileFactory());
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        // Errors and everything else stay JSON
+        return SearchBookResponse.class.isAssignableFrom(type)
+            || BookRepresentation.class.isAssignableFrom(type)
+            || List.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        ObjectMapper mapper = BookFormats.SMILE_TYPE.isCompatible(mediaType) ? smile : cbor;
+        mapper.writeValue(entityStream, value);
+    }
+}
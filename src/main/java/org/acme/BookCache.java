@@ -0,0 +1,112 @@
+package org.acme;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded read-through cache in front of {@code Book.findById}.
+ * Entries are evicted by size and by age; writes in {@link BookResource} invalidate them.
+ *
+ * The cache holds detached copies, never the managed entity of some request's persistence
+ * context. Misses are loaded outside the cache's own locking, so a slow query never holds a
+ * map bin (and, on virtual threads, never pins the carrier).
+ */
+@ApplicationScoped
+public class BookCache {
+
+    @ConfigProperty(name = "book.cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "book.cache.max-size", defaultValue = "10000")
+    long maxSize;
+
+    @ConfigProperty(name = "book.cache.ttl.seconds", defaultValue = "300")
+    long ttlSeconds;
+
+    @Inject
+    TransactionSynchronizationRegistry txRegistry;
+
+    private Cache<Long, Book> cache;
+    // Bumped by every invalidation; a load that raced one is returned but not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public Book findById(long id) {
+        if (!enabled) {
+            return Book.findById(id);
+        }
+        Book cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        long before = generation.get();
+        Book loaded = Book.findById(id);
+        if (loaded == null) {
+            // Misses are not cached, so a later insert is visible right away
+            return null;
+        }
+        Book copy = copyOf(loaded);
+        cache.asMap().compute(id, (key, current) -> generation.get() == before ? copy : current);
+        return copy;
+    }
+
+    public void invalidate(Long id) {
+        generation.incrementAndGet();
+        cache.invalidate(id);
+        if (txRegistry.getTransactionStatus() == Status.STATUS_ACTIVE) {
+            // Drop it again once the transaction ends, so a reader racing the commit cannot leave a stale copy behind
+            txRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                    cache.invalidate(id);
+                }
+            });
+        }
+    }
+
+    private static Book copyOf(Book book) {
+        Book copy = new Book(book.titulo, book.autor, book.editora, book.anoLancamento, book.estaDisponivel);
+        copy.id = book.id;
+        copy.version = book.version;
+        return copy;
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+}
@@ -0,0 +1,183 @@
+package org.acme;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entity tags for conditional GETs.
+ *
+ * Item tags come from the {@code Book.version} column and are remembered per id once a
+ * book has been served, so a matching {@code If-None-Match} is answered without touching
+ * the database. Only the most recently used ids are remembered; a forgotten one costs a
+ * read. A deleted id keeps a tombstone, so a read that raced the delete cannot bring its
+ * tag back. The collection tag is a catalog-wide counter bumped on every committed
+ * write. The serialized JSON of each book is kept next to its version so repeat reads
+ * skip the Jackson pass.
+ */
+@ApplicationScoped
+public class BookETags {
+
+    // Version recorded for a deleted book
+    private static final long DELETED = -1;
+
+    @ConfigProperty(name = "book.etag.max-size", defaultValue = "100000")
+    long maxVersions;
+
+    @ConfigProperty(name = "book.etag.body-cache.max-size", defaultValue = "10000")
+    long maxBodies;
+
+    @Inject
+    TransactionSynchronizationRegistry txRegistry;
+
+    // Counter restarts with the process, so the boot time keeps old collection tags from matching
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private Cache<Long, Long> versions;
+    private Cache<Long, CachedBody> bodies;
+
+    @PostConstruct
+    void init() {
+        versions = Caffeine.newBuilder()
+                .maximumSize(maxVersions)
+                .build();
+        bodies = Caffeine.newBuilder()
+                .maximumSize(maxBodies)
+                .build();
+    }
+
+    public String etag(long id) {
+        Long version = versions.getIfPresent(id);
+        return version == null || version == DELETED ? null : format(id, version);
+    }
+
+    public String catalogETag() {
+        return "\"c" + epoch + "-" + catalogVersion.get() + "\"";
+    }
+
+    /**
+     * Remembers the version of a book that was just read and returns its tag.
+     */
+    public String track(Book book) {
+        // Versions only grow, so a read that raced a commit cannot roll the tag back
+        remember(book);
+        return format(book.id, book.version);
+    }
+
+    public byte[] cachedBody(long id, String baseUri) {
+        CachedBody body = bodies.getIfPresent(id);
+        if (body == null || !body.baseUri.equals(baseUri) || !Long.valueOf(body.version).equals(versions.getIfPresent(id))) {
+            return null;
+        }
+        return body.bytes;
+    }
+
+    public void storeBody(Book book, String baseUri, byte[] bytes) {
+        bodies.put(book.id, new CachedBody(book.version, baseUri, bytes));
+    }
+
+    /**
+     * Records a created or updated book. The version is only bumped by Hibernate on flush,
+     * so inside a transaction the new tag is taken once it commits.
+     */
+    public void changed(Book book) {
+        afterCommit(() -> {
+            remember(book);
+            bodies.invalidate(book.id);
+            catalogVersion.incrementAndGet();
+        });
+    }
+
+    public void removed(Long id) {
+        afterCommit(() -> {
+            versions.put(id, DELETED);
+            bodies.invalidate(id);
+            catalogVersion.incrementAndGet();
+        });
+    }
+
+    /**
+     * Tag of another representation of the same resource version, e.g. a compact rendering.
+     */
+    public static String variant(String etag, String name) {
+        return etag.substring(0, etag.length() - 1) + ";" + name + "\"";
+    }
+
+    /**
+     * Weak comparison as required for If-None-Match, including the {@code *} wildcard.
+     *
+     * The header is read as a list of entity-tags rather than split on commas, since variant
+     * tags carry commas inside the quotes ({@code "7;fields=id,titulo"}).
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        int i = 0;
+        int length = ifNoneMatch.length();
+        while (i < length) {
+            char c = ifNoneMatch.charAt(i);
+            if (c == ',' || c == ' ' || c == '\t') {
+                i++;
+            } else if (c == '*') {
+                return true;
+            } else {
+                // W/ only marks the tag weak, which If-None-Match ignores
+                if (ifNoneMatch.startsWith("W/", i)) {
+                    i += 2;
+                }
+                if (i >= length || ifNoneMatch.charAt(i) != '"') {
+                    return false;
+                }
+                int end = ifNoneMatch.indexOf('"', i + 1);
+                if (end < 0) {
+                    return false;
+                }
+                if (ifNoneMatch.regionMatches(i, etag, 0, etag.length()) && end + 1 - i == etag.length()) {
+                    return true;
+                }
+                i = end + 1;
+            }
+        }
+        return false;
+    }
+
+    private void remember(Book book) {
+        versions.asMap().merge(book.id, book.version,
+            (current, read) -> current == DELETED ? DELETED : Math.max(current, read));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (txRegistry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+            action.run();
+            return;
+        }
+        txRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private static String format(long id, long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    private record CachedBody(long version, String baseUri, byte[] bytes) {
+    }
+}
@@ -0,0 +1,164 @@
+package org.acme;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.transaction.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catalog-wide facet counts for {@code GET /books/facets}: books per editora, per decade of
+ * anoLancamento and per estaDisponivel.
+ *
+ * Counters are loaded once at startup and then moved by the writes in {@link BookResource}
+ * after they commit, so reading them costs the number of distinct values, never a scan.
+ * The facet values each book was counted under are kept per id, which lets an update or
+ * delete take back exactly what it added. Facets are read one after another while writes
+ * go on, so a response may be a write ahead on one facet than on another.
+ */
+@ApplicationScoped
+public class BookFacets {
+
+    // Stands in for a null editora, which a ConcurrentHashMap cannot hold as a key
+    private static final Object NONE = new Object();
+
+    @Inject
+    TransactionSynchronizationRegistry txRegistry;
+
+    private final Map<Long, Key> keys = new ConcurrentHashMap<>();
+    private final Map<Object, Long> editora = new ConcurrentHashMap<>();
+    private final Map<Object, Long> decada = new ConcurrentHashMap<>();
+    private final Map<Object, Long> estaDisponivel = new ConcurrentHashMap<>();
+
+    @Transactional
+    void onStart(@Observes StartupEvent event) {
+        Book.getEntityManager()
+            .createQuery("select b.id, b.editora, b.anoLancamento, b.estaDisponivel from Book b", Object[].class)
+            .getResultStream()
+            .forEach(row -> apply((Long) row[0], new Key((String) row[1], decade((Integer) row[2]), (Boolean) row[3])));
+    }
+
+    /**
+     * Counts a created or updated book once its transaction commits.
+     */
+    public void index(Book book) {
+        if (book == null || book.id == null) {
+            return;
+        }
+        // Take the values now, the entity may change again before the commit
+        Long id = book.id;
+        Key key = Key.of(book);
+        afterCommit(() -> apply(id, key));
+    }
+
+    public void remove(Long id) {
+        afterCommit(() -> apply(id, null));
+    }
+
+    public BookFacetsResponse counts() {
+        BookFacetsResponse response = new BookFacetsResponse();
+        response.editora = sorted(editora);
+        response.decada = sorted(decada);
+        response.estaDisponivel = sorted(estaDisponivel);
+        // Every book is counted exactly once under estaDisponivel
+        response.total = response.estaDisponivel.stream().mapToLong(BookFacetsResponse.FacetCount::count).sum();
+        return response;
+    }
+
+    /**
+     * Folds the rows of a {@code group by editora, decade, estaDisponivel} query into facets.
+     */
+    static BookFacetsResponse fromGroups(List<Object[]> rows) {
+        Map<Object, Long> editora = new HashMap<>();
+        Map<Object, Long> decada = new HashMap<>();
+        Map<Object, Long> estaDisponivel = new HashMap<>();
+        long total = 0;
+        for (Object[] row : rows) {
+            long count = ((Number) row[3]).longValue();
+            editora.merge(row[0] == null ? NONE : row[0], count, Long::sum);
+            decada.merge(((Number) row[1]).intValue(), count, Long::sum);
+            estaDisponivel.merge(row[2], count, Long::sum);
+            total += count;
+        }
+        BookFacetsResponse response = new BookFacetsResponse();
+        response.total = total;
+        response.editora = sorted(editora);
+        response.decada = sorted(decada);
+        response.estaDisponivel = sorted(estaDisponivel);
+        return response;
+    }
+
+    /**
+     * {@link #decade(int)} in HQL, for the grouped query of {@code /books/facets?q=}; both round
+     * down, so -1995 falls in -2000 either way.
+     */
+    static final String DECADE_HQL = "cast(floor(b.anoLancamento / 10.0) * 10 as integer)";
+
+    static int decade(int anoLancamento) {
+        return Math.floorDiv(anoLancamento, 10) * 10;
+    }
+
+    private void apply(Long id, Key key) {
+        Key previous = key == null ? keys.remove(id) : keys.put(id, key);
+        if (previous != null) {
+            previous.count(this, -1);
+        }
+        if (key != null) {
+            key.count(this, 1);
+        }
+    }
+
+    private static void add(Map<Object, Long> counts, Object value, long delta) {
+        // Values whose count drops to zero disappear from the facet
+        counts.merge(value == null ? NONE : value, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private static List<BookFacetsResponse.FacetCount> sorted(Map<Object, Long> counts) {
+        List<BookFacetsResponse.FacetCount> values = new ArrayList<>(counts.size());
+        counts.forEach((value, count) -> values.add(new BookFacetsResponse.FacetCount(value == NONE ? null : value, count)));
+        values.sort(Comparator.comparingLong(BookFacetsResponse.FacetCount::count).reversed());
+        return values;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (txRegistry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+            action.run();
+            return;
+        }
+        txRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private record Key(String editora, int decada, boolean estaDisponivel) {
+
+        static Key of(Book book) {
+            return new Key(book.editora, decade(book.anoLancamento), book.estaDisponivel);
+        }
+
+        void count(BookFacets facets, long delta) {
+            add(facets.editora, editora, delta);
+            add(facets.decada, decada, delta);
+            add(facets.estaDisponivel, estaDisponivel, delta);
+        }
+    }
+}
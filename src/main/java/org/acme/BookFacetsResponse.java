@@ -0,0 +1,19 @@
+package org.acme;
+
+import java.util.List;
+
+public class BookFacetsResponse {
+    public long total;
+    public List<FacetCount> editora;
+    public List<FacetCount> decada;
+    public List<FacetCount> estaDisponivel;
+
+    public BookFacetsResponse() {
+    }
+
+    /**
+     * One facet value (an editora, the first year of a decade, or a boolean) and how many books have it.
+     */
+    public record FacetCount(Object value, long count) {
+    }
+}
@@ -0,0 +1,136 @@
+package org.acme;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sparse fieldset requested with {@code fields=} on list and search.
+ *
+ * Turns into a scalar projection (only the named columns are selected, and nothing enters
+ * the persistence context) and into the mask {@link BookRepresentationSerializer} uses to
+ * skip the fields that were not asked for. {@code id} is always selected and returned,
+ * because links and cursors are built from it.
+ */
+public final class BookFields {
+
+    static final int ID = 1;
+    static final int TITULO = 1 << 1;
+    static final int AUTOR = 1 << 2;
+    static final int EDITORA = 1 << 3;
+    static final int ANO_LANCAMENTO = 1 << 4;
+    static final int ESTA_DISPONIVEL = 1 << 5;
+    static final int ALL_MASK = ID | TITULO | AUTOR | EDITORA | ANO_LANCAMENTO | ESTA_DISPONIVEL;
+
+    // Column order of projections, matching the bit order above
+    private static final String[] NAMES = {"id", "titulo", "autor", "editora", "anoLancamento", "estaDisponivel"};
+
+    public static final BookFields ALL = new BookFields(ALL_MASK);
+
+    final int mask;
+
+    private BookFields(int mask) {
+        this.mask = mask;
+    }
+
+    /**
+     * Parses a comma separated list of field names.
+     *
+     * @throws IllegalArgumentException for an unknown field
+     */
+    public static BookFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        int mask = ID;
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            int bit = bit(name);
+            if (bit == 0) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            mask |= bit;
+        }
+        return mask == ALL_MASK ? ALL : new BookFields(mask);
+    }
+
+    public boolean isAll() {
+        return mask == ALL_MASK;
+    }
+
+    /**
+     * Canonical form, used to tell apart cached representations.
+     */
+    public String canonical() {
+        return String.join(",", names(mask));
+    }
+
+    /**
+     * The HQL selection: the whole entity, or the requested columns plus the sort column
+     * (cursors need its value even when it is not returned).
+     */
+    String selection(String sort) {
+        if (isAll()) {
+            return "b";
+        }
+        List<String> columns = new ArrayList<>();
+        for (String name : names(selected(sort))) {
+            columns.add("b." + name);
+        }
+        return String.join(", ", columns);
+    }
+
+    /**
+     * Turns a result row of {@link #selection(String)} back into a book. Projected books are
+     * plain objects, never managed by Hibernate.
+     */
+    Book toBook(Object[] row, String sort) {
+        if (isAll()) {
+            return (Book) row[0];
+        }
+        Book book = new Book();
+        int selected = selected(sort);
+        int column = 0;
+        for (int i = 0; i < NAMES.length; i++) {
+            if ((selected & (1 << i)) == 0) {
+                continue;
+            }
+            Object value = row[column++];
+            switch (i) {
+                case 0 -> book.id = (Long) value;
+                case 1 -> book.titulo = (String) value;
+                case 2 -> book.autor = (String) value;
+                case 3 -> book.editora = (String) value;
+                case 4 -> book.anoLancamento = (Integer) value;
+                case 5 -> book.estaDisponivel = (Boolean) value;
+                default -> throw new IllegalStateException();
+            }
+        }
+        return book;
+    }
+
+    private int selected(String sort) {
+        return mask | bit(sort);
+    }
+
+    private static int bit(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equalsIgnoreCase(name)) {
+                return 1 << i;
+            }
+        }
+        return 0;
+    }
+
+    private static List<String> names(int mask) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < NAMES.length; i++) {
+            if ((mask & (1 << i)) != 0) {
+                names.add(NAMES[i]);
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,81 @@
+package org.acme;
+
+import jakarta.ws.rs.core.MediaType;
+
+import java.util.List;
+
+/**
+ * Representations the list and search endpoints can be negotiated into, besides JSON.
+ *
+ * The binary Jackson formats carry exactly the JSON document; protobuf follows
+ * {@code /book.proto} and always sends item links as one template.
+ */
+final class BookFormats {
+
+    static final String CBOR = "application/cbor";
+    static final String SMILE = "application/x-jackson-smile";
+    static final String PROTOBUF = "application/x-protobuf";
+
+    static final MediaType CBOR_TYPE = MediaType.valueOf(CBOR);
+    static final MediaType SMILE_TYPE = MediaType.valueOf(SMILE);
+    static final MediaType PROTOBUF_TYPE = MediaType.valueOf(PROTOBUF);
+
+    private static final List<MediaType> SUPPORTED = List.of(
+        MediaType.APPLICATION_JSON_TYPE, CBOR_TYPE, SMILE_TYPE, PROTOBUF_TYPE);
+
+    private BookFormats() {
+    }
+
+    /**
+     * The best supported type for an {@code Accept} header: highest q first, then the order
+     * the client listed them in. JSON when nothing more specific is asked for.
+     */
+    static MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON_TYPE;
+        }
+        MediaType best = MediaType.APPLICATION_JSON_TYPE;
+        double bestQ = -1;
+        for (String range : accept.split(",")) {
+            MediaType requested;
+            try {
+                requested = MediaType.valueOf(range.trim());
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            double q = quality(requested);
+            if (q <= bestQ || q == 0) {
+                continue;
+            }
+            for (MediaType supported : SUPPORTED) {
+                if (requested.isCompatible(supported)) {
+                    // Wildcards keep JSON, the first supported type
+                    best = supported;
+                    bestQ = q;
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    static boolean isJson(MediaType type) {
+        return MediaType.APPLICATION_JSON_TYPE.isCompatible(type);
+    }
+
+    /**
+     * Tags the binary renderings apart from the JSON one.
+     */
+    static String etag(String etag, MediaType type) {
+        return isJson(type) ? etag : BookETags.variant(etag, type.getSubtype());
+    }
+
+    private static double quality(MediaType type) {
+        String q = type.getParameters().get("q");
+        try {
+            return q == null ? 1 : Double.parseDouble(q);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
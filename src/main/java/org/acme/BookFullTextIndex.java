@@ -0,0 +1,170 @@
+package org.acme;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.Query;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Database-side full-text search for {@code book.search.mode=fulltext}.
+ *
+ * Uses H2's native full-text index on titulo, autor and editora. H2 keeps it up to date
+ * through triggers on the BOOK table, and a query only walks the word index for its
+ * tokens, so the cost follows the number of matches instead of the table size. Native
+ * H2 scores every hit the same, so matches are ranked here by which fields contain each
+ * token (titulo over autor over editora), with a bonus when the title holds the whole query.
+ */
+@ApplicationScoped
+public class BookFullTextIndex {
+
+    static final String RELEVANCE = "relevance";
+
+    private static final int MAX_TOKENS = 8;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Inject
+    RequestDeadline deadline;
+
+    @ConfigProperty(name = "book.search.mode", defaultValue = "index")
+    String mode;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled()) {
+            return;
+        }
+        // Runs after Hibernate created the schema; recreating the index also indexes existing rows
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("create alias if not exists FT_INIT for 'org.h2.fulltext.FullText.init'");
+            statement.execute("call FT_INIT()");
+            statement.execute("call FT_DROP_INDEX('PUBLIC', 'BOOK')");
+            statement.execute("call FT_CREATE_INDEX('PUBLIC', 'BOOK', 'TITULO,AUTOR,EDITORA')");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not create the book full-text index", e);
+        }
+    }
+
+    public boolean enabled() {
+        return "fulltext".equalsIgnoreCase(mode);
+    }
+
+    /**
+     * Returns up to {@code limit} matching ids, best first (ties by id), starting at
+     * {@code offset} or right after {@code after} when a relevance cursor is given.
+     */
+    public Page search(String q, SearchCursor after, int offset, int limit) {
+        List<String> tokens = tokens(q);
+        if (tokens.isEmpty()) {
+            return new Page(List.of(), List.of(), 0);
+        }
+
+        List<Object> params = new ArrayList<>();
+        params.add(String.join(" ", tokens));
+
+        StringBuilder score = new StringBuilder();
+        for (String token : tokens) {
+            params.add(BookSearchIndex.containsPattern(token));
+            int p = params.size();
+            score.append("case when lower(b.TITULO) like ?").append(p).append(" escape '\\' then 3 else 0 end + ")
+                 .append("case when lower(b.AUTOR) like ?").append(p).append(" escape '\\' then 2 else 0 end + ")
+                 .append("case when lower(b.EDITORA) like ?").append(p).append(" escape '\\' then 1 else 0 end + ");
+        }
+        params.add(BookSearchIndex.containsPattern(BookSearchIndex.normalize(q.strip())));
+        score.append("case when lower(b.TITULO) like ?").append(params.size()).append(" escape '\\' then 4 else 0 end");
+
+        // The window count sees every match, so the total is exact even behind a cursor
+        StringBuilder sql = new StringBuilder("select r.ID, r.SCORE, r.TOTAL from (select b.ID as ID, ")
+            .append(score).append(" as SCORE, count(*) over () as TOTAL ")
+            .append("from FT_SEARCH_DATA(?1, 0, 0) ft join BOOK b on b.ID = cast(ft.KEYS[1] as bigint) ")
+            .append("where ft.\"TABLE\" = 'BOOK') r");
+        if (after != null) {
+            params.add(after.lastValue);
+            int s = params.size();
+            params.add(after.lastId);
+            sql.append(" where r.SCORE < ?").append(s)
+               .append(" or (r.SCORE = ?").append(s).append(" and r.ID > ?").append(params.size()).append(")");
+        }
+        sql.append(" order by r.SCORE desc, r.ID");
+
+        Query query = deadline.applyTo(Book.getEntityManager().createNativeQuery(sql.toString()));
+        for (int i = 0; i < params.size(); i++) {
+            query.setParameter(i + 1, params.get(i));
+        }
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.setFirstResult(after != null ? 0 : offset)
+            .setMaxResults(limit)
+            .getResultList();
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        List<Integer> scores = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            ids.add(((Number) row[0]).longValue());
+            scores.add(((Number) row[1]).intValue());
+        }
+        long total;
+        if (!rows.isEmpty()) {
+            total = ((Number) rows.get(0)[2]).longValue();
+        } else if (after == null && offset == 0) {
+            total = 0;
+        } else {
+            // Past the last match there is no row to read the window count from
+            total = ((Number) deadline.applyTo(Book.getEntityManager().createNativeQuery(
+                    "select count(*) from FT_SEARCH_DATA(?1, 0, 0) where \"TABLE\" = 'BOOK'"))
+                .setParameter(1, params.get(0))
+                .getSingleResult()).longValue();
+        }
+        return new Page(ids, scores, total);
+    }
+
+    /**
+     * Every matching id, unranked.
+     */
+    public List<Long> matches(String q) {
+        List<String> tokens = tokens(q);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        @SuppressWarnings("unchecked")
+        List<Object> rows = deadline.applyTo(Book.getEntityManager().createNativeQuery(
+                "select cast(KEYS[1] as bigint) from FT_SEARCH_DATA(?1, 0, 0) where \"TABLE\" = 'BOOK'"))
+            .setParameter(1, String.join(" ", tokens))
+            .getResultList();
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Object id : rows) {
+            ids.add(((Number) id).longValue());
+        }
+        return ids;
+    }
+
+    /**
+     * Words of the query as the index sees them; the index requires all of them to match.
+     */
+    static List<String> tokens(String q) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : BookSearchIndex.normalize(q).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty() && tokens.size() < MAX_TOKENS) {
+                tokens.add(token);
+            }
+        }
+        return List.copyOf(tokens);
+    }
+
+    /**
+     * @param total every match of the query, not just this page
+     */
+    public record Page(List<Long> ids, List<Integer> scores, long total) {
+    }
+}
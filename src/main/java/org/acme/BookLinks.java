@@ -0,0 +1,78 @@
+package org.acme;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * The link targets of a book for one base URI, computed once instead of per book.
+ *
+ * Item links differ only in the id, so they are assembled in a per-thread char buffer and
+ * handed to the generator as characters; no string is built for them at all.
+ */
+final class BookLinks {
+
+    private static final ThreadLocal<char[]> SCRATCH = ThreadLocal.withInitial(() -> new char[128]);
+
+    // Base URIs almost never change within a deployment, so one remembered entry is enough
+    private static volatile BookLinks last;
+
+    final String base;
+    final String all;
+    final String search;
+    final String itemTemplate;
+    private final char[] itemPrefix;
+
+    private BookLinks(String base) {
+        this.base = base;
+        this.all = base + "books";
+        this.search = base + "books/search";
+        this.itemTemplate = base + "books/{id}";
+        this.itemPrefix = (base + "books/").toCharArray();
+    }
+
+    static BookLinks of(URI baseUri) {
+        String base = baseUri.toString();
+        BookLinks links = last;
+        if (links == null || !links.base.equals(base)) {
+            links = new BookLinks(base);
+            last = links;
+        }
+        return links;
+    }
+
+    /**
+     * Writes {@code <base>books/<id>} as a string value.
+     */
+    void writeItem(JsonGenerator generator, long id) throws IOException {
+        char[] buffer = SCRATCH.get();
+        int needed = itemPrefix.length + 20;
+        if (buffer.length < needed) {
+            buffer = new char[needed];
+            SCRATCH.set(buffer);
+        }
+        System.arraycopy(itemPrefix, 0, buffer, 0, itemPrefix.length);
+        int end = appendDigits(buffer, itemPrefix.length, id);
+        generator.writeString(buffer, 0, end);
+    }
+
+    private static int appendDigits(char[] buffer, int offset, long value) {
+        if (value < 0) {
+            buffer[offset++] = '-';
+            value = -value;
+        }
+        int start = offset;
+        do {
+            buffer[offset++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        // Digits were produced least significant first
+        for (int i = start, j = offset - 1; i < j; i++, j--) {
+            char c = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = c;
+        }
+        return offset;
+    }
+}
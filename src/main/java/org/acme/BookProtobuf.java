@@ -0,0 +1,132 @@
+package org.acme;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Protobuf encoding of the book list and search responses, following {@code book.proto}.
+ *
+ * Written straight from the representations with {@link CodedOutputStream}, without
+ * generated message classes: sizes of the nested messages are computed first, then the
+ * fields are written in one pass.
+ */
+final class BookProtobuf {
+
+    private BookProtobuf() {
+    }
+
+    /**
+     * {@code BookList}
+     */
+    static void writeList(OutputStream output, List<BookRepresentation> books, BookLinks links) throws IOException {
+        CodedOutputStream out = CodedOutputStream.newInstance(output);
+        for (BookRepresentation book : books) {
+            writeBook(out, 1, book);
+        }
+        out.writeString(2, links.itemTemplate);
+        out.flush();
+    }
+
+    /**
+     * {@code SearchBookResponse}; the item template is added to the links when the response has per-book links.
+     */
+    static void writeSearch(OutputStream output, SearchBookResponse response, BookLinks links) throws IOException {
+        CodedOutputStream out = CodedOutputStream.newInstance(output);
+        for (BookRepresentation book : response.books) {
+            writeBook(out, 1, book);
+        }
+
+        SearchBookResponse.PaginationMetadata pagination = response.pagination;
+        out.writeTag(2, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        out.writeUInt32NoTag(paginationSize(pagination));
+        out.writeInt32(1, pagination.page);
+        out.writeInt32(2, pagination.size);
+        if (pagination.totalElements != null) {
+            out.writeInt64(3, pagination.totalElements);
+        }
+        if (pagination.totalPages != null) {
+            out.writeInt64(4, pagination.totalPages);
+        }
+
+        for (Map.Entry<String, String> link : response._links.entrySet()) {
+            writeLink(out, link.getKey(), link.getValue());
+        }
+        if (!response._links.containsKey("item")) {
+            writeLink(out, "item", links.itemTemplate);
+        }
+        out.flush();
+    }
+
+    private static void writeBook(CodedOutputStream out, int field, BookRepresentation book) throws IOException {
+        out.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        out.writeUInt32NoTag(bookSize(book));
+        int mask = book.fieldMask;
+        if ((mask & BookFields.ID) != 0 && book.id != null) {
+            out.writeInt64(1, book.id);
+        }
+        if ((mask & BookFields.TITULO) != 0 && book.titulo != null) {
+            out.writeString(2, book.titulo);
+        }
+        if ((mask & BookFields.AUTOR) != 0 && book.autor != null) {
+            out.writeString(3, book.autor);
+        }
+        if ((mask & BookFields.EDITORA) != 0 && book.editora != null) {
+            out.writeString(4, book.editora);
+        }
+        if ((mask & BookFields.ANO_LANCAMENTO) != 0) {
+            out.writeInt32(5, book.anoLancamento);
+        }
+        if ((mask & BookFields.ESTA_DISPONIVEL) != 0) {
+            out.writeBool(6, book.estaDisponivel);
+        }
+    }
+
+    private static int bookSize(BookRepresentation book) {
+        int mask = book.fieldMask;
+        int size = 0;
+        if ((mask & BookFields.ID) != 0 && book.id != null) {
+            size += CodedOutputStream.computeInt64Size(1, book.id);
+        }
+        if ((mask & BookFields.TITULO) != 0 && book.titulo != null) {
+            size += CodedOutputStream.computeStringSize(2, book.titulo);
+        }
+        if ((mask & BookFields.AUTOR) != 0 && book.autor != null) {
+            size += CodedOutputStream.computeStringSize(3, book.autor);
+        }
+        if ((mask & BookFields.EDITORA) != 0 && book.editora != null) {
+            size += CodedOutputStream.computeStringSize(4, book.editora);
+        }
+        if ((mask & BookFields.ANO_LANCAMENTO) != 0) {
+            size += CodedOutputStream.computeInt32Size(5, book.anoLancamento);
+        }
+        if ((mask & BookFields.ESTA_DISPONIVEL) != 0) {
+            size += CodedOutputStream.computeBoolSize(6, book.estaDisponivel);
+        }
+        return size;
+    }
+
+    private static int paginationSize(SearchBookResponse.PaginationMetadata pagination) {
+        int size = CodedOutputStream.computeInt32Size(1, pagination.page)
+            + CodedOutputStream.computeInt32Size(2, pagination.size);
+        if (pagination.totalElements != null) {
+            size += CodedOutputStream.computeInt64Size(3, pagination.totalElements);
+        }
+        if (pagination.totalPages != null) {
+            size += CodedOutputStream.computeInt64Size(4, pagination.totalPages);
+        }
+        return size;
+    }
+
+    // A map entry is an embedded message with the key as field 1 and the value as field 2
+    private static void writeLink(CodedOutputStream out, String rel, String href) throws IOException {
+        out.writeTag(3, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        out.writeUInt32NoTag(CodedOutputStream.computeStringSize(1, rel) + CodedOutputStream.computeStringSize(2, href));
+        out.writeString(1, rel);
+        out.writeString(2, href);
+    }
+}
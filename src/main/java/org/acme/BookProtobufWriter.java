@@ -0,0 +1,50 @@
+package org.acme;
+
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+@Provider
+@Produces(BookFormats.PROTOBUF)
+public class BookProtobufWriter implements MessageBodyWriter<Object> {
+
+    @Context
+    UriInfo uriInfo;
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return SearchBookResponse.class.isAssignableFrom(type) || isBookList(type, genericType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        BookLinks links = BookLinks.of(uriInfo.getBaseUri());
+        if (value instanceof SearchBookResponse response) {
+            BookProtobuf.writeSearch(entityStream, response, links);
+        } else {
+            BookProtobuf.writeList(entityStream, (List<BookRepresentation>) value, links);
+        }
+    }
+
+    private static boolean isBookList(Class<?> type, Type genericType) {
+        if (!List.class.isAssignableFrom(type)) {
+            return false;
+        }
+        // Raw lists are accepted too, the resource only sets this type on book lists
+        return !(genericType instanceof ParameterizedType parameterized)
+            || parameterized.getActualTypeArguments()[0] == BookRepresentation.class;
+    }
+}
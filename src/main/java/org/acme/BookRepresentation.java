@@ -1,10 +1,15 @@
 package org.acme;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.ws.rs.core.UriInfo;
-import java.net.URI;
-import java.util.HashMap;
-import java.util.Map;
 
+/**
+ * A book with its HATEOAS links. The links ({@code self}, {@code all}, {@code delete},
+ * {@code update}, {@code search}) are not stored per book but written by
+ * {@link BookRepresentationSerializer}.
+ */
+@JsonSerialize(using = BookRepresentationSerializer.class)
 public class BookRepresentation {
     public Long id;
     public String titulo;
@@ -12,12 +17,38 @@ public class BookRepresentation {
     public String editora;
     public int anoLancamento;
     public boolean estaDisponivel;
-    public Map<String, String> _links;
+
+    // Null in compact collections, where the collection carries a link template instead
+    @JsonIgnore
+    BookLinks links;
+
+    // Fields the serializer writes, see BookFields
+    @JsonIgnore
+    int fieldMask = BookFields.ALL_MASK;
 
     public BookRepresentation() {
     }
 
     public static BookRepresentation from(Book book, UriInfo uriInfo) {
+        return from(book, BookLinks.of(uriInfo.getBaseUri()));
+    }
+
+    static BookRepresentation from(Book book, BookLinks links) {
+        BookRepresentation rep = compact(book);
+        rep.links = links;
+        return rep;
+    }
+
+    static BookRepresentation from(Book book, BookLinks links, BookFields fields) {
+        BookRepresentation rep = from(book, links);
+        rep.fieldMask = fields.mask;
+        return rep;
+    }
+
+    /**
+     * A representation without item links, for collections rendered with {@code Prefer: links=collection}.
+     */
+    public static BookRepresentation compact(Book book) {
         BookRepresentation rep = new BookRepresentation();
         rep.id = book.id;
         rep.titulo = book.titulo;
@@ -25,16 +56,6 @@ public class BookRepresentation {
         rep.editora = book.editora;
         rep.anoLancamento = book.anoLancamento;
         rep.estaDisponivel = book.estaDisponivel;
-        
-        rep._links = new HashMap<>();
-        URI baseUri = uriInfo.getBaseUri();
-        
-        rep._links.put("self", baseUri + "books/" + book.id);
-        rep._links.put("all", baseUri + "books");
-        rep._links.put("delete", baseUri + "books/" + book.id);
-        rep._links.put("update", baseUri + "books/" + book.id);
-        rep._links.put("search", baseUri + "books/search");
-        
         return rep;
     }
-}
\ No newline at end of file
+}
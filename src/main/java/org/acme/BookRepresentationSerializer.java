@@ -0,0 +1,88 @@
+package org.acme;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link BookRepresentation} field by field, with its {@code _links} streamed from
+ * the shared {@link BookLinks} instead of a per-book map, skipping fields left out of a
+ * sparse fieldset ({@link BookFields}). Field names are pre-encoded, and
+ * only generator calls are used, so any Jackson format can be written, not just JSON.
+ */
+public class BookRepresentationSerializer extends StdSerializer<BookRepresentation> {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString TITULO = new SerializedString("titulo");
+    private static final SerializableString AUTOR = new SerializedString("autor");
+    private static final SerializableString EDITORA = new SerializedString("editora");
+    private static final SerializableString ANO_LANCAMENTO = new SerializedString("anoLancamento");
+    private static final SerializableString ESTA_DISPONIVEL = new SerializedString("estaDisponivel");
+    private static final SerializableString LINKS = new SerializedString("_links");
+    private static final SerializableString SELF = new SerializedString("self");
+    private static final SerializableString ALL = new SerializedString("all");
+    private static final SerializableString DELETE = new SerializedString("delete");
+    private static final SerializableString UPDATE = new SerializedString("update");
+    private static final SerializableString SEARCH = new SerializedString("search");
+
+    public BookRepresentationSerializer() {
+        super(BookRepresentation.class);
+    }
+
+    @Override
+    public void serialize(BookRepresentation rep, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(rep);
+
+        int mask = rep.fieldMask;
+        gen.writeFieldName(ID);
+        if (rep.id == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(rep.id);
+        }
+        if ((mask & BookFields.TITULO) != 0) {
+            gen.writeFieldName(TITULO);
+            gen.writeString(rep.titulo);
+        }
+        if ((mask & BookFields.AUTOR) != 0) {
+            gen.writeFieldName(AUTOR);
+            gen.writeString(rep.autor);
+        }
+        if ((mask & BookFields.EDITORA) != 0) {
+            gen.writeFieldName(EDITORA);
+            gen.writeString(rep.editora);
+        }
+        if ((mask & BookFields.ANO_LANCAMENTO) != 0) {
+            gen.writeFieldName(ANO_LANCAMENTO);
+            gen.writeNumber(rep.anoLancamento);
+        }
+        if ((mask & BookFields.ESTA_DISPONIVEL) != 0) {
+            gen.writeFieldName(ESTA_DISPONIVEL);
+            gen.writeBoolean(rep.estaDisponivel);
+        }
+
+        // Compact collections carry one link template instead of per-item links
+        BookLinks links = rep.links;
+        if (links != null && rep.id != null) {
+            gen.writeFieldName(LINKS);
+            gen.writeStartObject();
+            gen.writeFieldName(SELF);
+            links.writeItem(gen, rep.id);
+            gen.writeFieldName(ALL);
+            gen.writeString(links.all);
+            gen.writeFieldName(DELETE);
+            links.writeItem(gen, rep.id);
+            gen.writeFieldName(UPDATE);
+            links.writeItem(gen, rep.id);
+            gen.writeFieldName(SEARCH);
+            gen.writeString(links.search);
+            gen.writeEndObject();
+        }
+
+        gen.writeEndObject();
+    }
+}
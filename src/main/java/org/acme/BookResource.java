@@ -1,13 +1,26 @@
 package org.acme;
 
-import io.quarkus.hibernate.orm.panache.PanacheQuery;
-import io.quarkus.panache.common.Sort;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.vertx.core.cli.annotations.Summary;
-import jakarta.transaction.Transactional;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.core.UriInfo;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
@@ -21,44 +34,151 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Path("/books")
+@Produces(MediaType.APPLICATION_JSON)
 @Tag(name = "Books", description = "Book management operations")
 public class BookResource {
 
+    static final String NDJSON = "application/x-ndjson";
+    private static final int STREAM_FETCH_SIZE = 500;
+
     @Context
     UriInfo uriInfo;
 
+    @Context
+    HttpHeaders httpHeaders;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    BookSearchIndex searchIndex;
+
+    @Inject
+    SearchCountCache countCache;
+
+    @Inject
+    BookCache bookCache;
+
+    @Inject
+    BookETags bookETags;
+
+    @Inject
+    RequestDeadline deadline;
+
+    @Inject
+    ApiMetrics metrics;
+
+    @Inject
+    BookFullTextIndex fullTextIndex;
+
+    @Inject
+    BookFacets facets;
+
+    // index: trigram index with a LIKE fallback, like: always LIKE, fulltext: H2 full-text ranked by relevance
+    @ConfigProperty(name = "book.search.mode", defaultValue = "index")
+    String searchMode;
+
+    // Above this many trigram matches the search binds no id list and scans with LIKE instead
+    @ConfigProperty(name = "book.search.index.max-ids", defaultValue = "1000")
+    int maxIndexedIds;
+
+    @ConfigProperty(name = "book.batch.chunk-size", defaultValue = "500")
+    int batchChunkSize;
+
     private BookRepresentation rep(Book b){
         return BookRepresentation.from(b, uriInfo);
     }
 
-    private List<BookRepresentation> repList(List<Book> books){
-        return books.stream().map(this::rep).collect(Collectors.toList());
+    private List<BookRepresentation> repList(List<Object[]> rows, boolean compact, BookFields fields){
+        BookLinks links = compact ? null : BookLinks.of(uriInfo.getBaseUri());
+        return rows.stream()
+                .map(row -> BookRepresentation.from(fields.toBook(row, "id"), links, fields))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * A 200 in the format the {@code Accept} header asks for, see {@link BookFormats}.
+     */
+    private Response.ResponseBuilder negotiated(Object entity) {
+        return Response.ok(entity)
+                .type(BookFormats.negotiate(httpHeaders.getHeaderString(HttpHeaders.ACCEPT)))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    }
+
+    /**
+     * {@code Prefer: links=collection} asks for item links as one template per collection.
+     */
+    static boolean compactLinks(String prefer) {
+        return prefer != null && prefer.toLowerCase(Locale.ROOT).contains("links=collection");
+    }
+
+    private Response.ResponseBuilder linkPreference(Response.ResponseBuilder builder, boolean compact) {
+        builder.header(HttpHeaders.VARY, "Prefer");
+        if (compact) {
+            builder.header("Preference-Applied", "links=collection")
+                   .header("Link", "<" + BookLinks.of(uriInfo.getBaseUri()).itemTemplate + ">; rel=\"item\"");
+        }
+        return builder;
     }
 
 
     @GET
+    @Produces({MediaType.APPLICATION_JSON, NDJSON, BookFormats.CBOR, BookFormats.SMILE, BookFormats.PROTOBUF})
     @Operation(
         summary = "List all books",
-        description = "Retrieves a complete list of all books in the catalog"
+        description = "Retrieves a complete list of all books in the catalog. " +
+                      "Send Accept: application/x-ndjson (one book per line) or stream=true (chunked JSON array) " +
+                      "to stream large catalogs row by row with constant memory. " +
+                      "application/cbor, application/x-jackson-smile and application/x-protobuf (schema at /book.proto) " +
+                      "are negotiated through Accept."
     )
     @APIResponses(value = {
         @APIResponse(
             responseCode = "200",
             description = "Successfully retrieved list of books",
-            content = @Content(
-                mediaType = "application/json",
-                schema = @Schema(implementation = Book.class, type = SchemaType.ARRAY),
-                examples = @ExampleObject(
-                    name = "Book list",
-                    value = "[{\"id\":1,\"titulo\":\"Clean Code\",\"autor\":\"Robert Martin\",\"editora\":\"Prentice Hall\",\"anoLancamento\":2008,\"estaDisponivel\":true,\"links\":{\"self\":\"/books/1\"}}]"
-                )
-            )
+            content = {
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = Book.class, type = SchemaType.ARRAY),
+                    examples = @ExampleObject(
+                        name = "Book list",
+                        value = "[{\"id\":1,\"titulo\":\"Clean Code\",\"autor\":\"Robert Martin\",\"editora\":\"Prentice Hall\",\"anoLancamento\":2008,\"estaDisponivel\":true,\"links\":{\"self\":\"/books/1\"}}]"
+                    )
+                ),
+                @Content(
+                    mediaType = NDJSON,
+                    examples = @ExampleObject(
+                        name = "Book stream",
+                        value = "{\"id\":1,\"titulo\":\"Clean Code\",\"autor\":\"Robert Martin\"}\n{\"id\":2,\"titulo\":\"Refactoring\",\"autor\":\"Martin Fowler\"}"
+                    )
+                ),
+                @Content(mediaType = BookFormats.CBOR),
+                @Content(mediaType = BookFormats.SMILE),
+                @Content(mediaType = BookFormats.PROTOBUF)
+            }
+        ),
+        @APIResponse(
+            responseCode = "304",
+            description = "Not modified - the If-None-Match ETag is still current"
         ),
         @APIResponse(
             responseCode = "429",
@@ -82,8 +202,130 @@ public class BookResource {
             )
         )
     })
-    public Response getAll(){
-        return Response.ok(repList(Book.listAll())).build();
+    public Response getAll(
+            @Parameter(description = "Stream the catalog as a chunked JSON array instead of building it in memory", example = "false")
+            @QueryParam("stream") @DefaultValue("false") boolean stream,
+            @HeaderParam("Accept") String accept,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @Parameter(description = "links=collection replaces per-book links with one item template, sent as a Link header", example = "links=collection")
+            @HeaderParam("Prefer") String prefer,
+            @Parameter(description = "Comma separated fields to return (id is always included); only these columns are read", example = "id,titulo")
+            @QueryParam("fields") String fields){
+        BookFields fieldset;
+        try {
+            fieldset = BookFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            // Serialized by Jackson, the field name comes from the client
+            return Response.status(400).entity(Map.of("error", e.getMessage())).type(MediaType.APPLICATION_JSON).build();
+        }
+        boolean compact = compactLinks(prefer);
+        MediaType format = BookFormats.negotiate(accept);
+        boolean ndjson = isNdjson(accept);
+        String etag = listETag(accept, compact, fieldset);
+        if (BookETags.matches(ifNoneMatch, etag)) {
+            return Response.notModified().header(HttpHeaders.ETAG, etag).build();
+        }
+        Response.ResponseBuilder builder;
+        if (ndjson) {
+            builder = Response.ok(streamBooks(true, compact, fieldset)).type(NDJSON);
+        } else if (stream) {
+            builder = Response.ok(streamBooks(false, compact, fieldset)).type(MediaType.APPLICATION_JSON);
+        } else {
+            builder = Response.ok(repList(deadline.applyTo(listBooks(fieldset)).getResultList(), compact, fieldset))
+                    .type(format);
+        }
+        return linkPreference(builder, compact)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .header(HttpHeaders.ETAG, etag)
+                .build();
+    }
+
+    /**
+     * Catalog tag of one rendering of the list; formats, compact links and fieldsets are separate representations.
+     */
+    String listETag(String accept, boolean compact, BookFields fields) {
+        String etag = bookETags.catalogETag();
+        if (compact) {
+            etag = BookETags.variant(etag, "links");
+        }
+        if (!fields.isAll()) {
+            etag = BookETags.variant(etag, "fields=" + fields.canonical());
+        }
+        // NDJSON is not one of the negotiated formats, but it is a representation of its own
+        return isNdjson(accept) ? BookETags.variant(etag, "x-ndjson") : BookFormats.etag(etag, BookFormats.negotiate(accept));
+    }
+
+    private static boolean isNdjson(String accept) {
+        return accept != null && accept.contains(NDJSON);
+    }
+
+    /**
+     * All books in id order, read-only, as whole entities or only the requested columns.
+     */
+    private TypedQuery<Object[]> listBooks(BookFields fields) {
+        return Book.getEntityManager()
+                .createQuery("select " + fields.selection("id") + " from Book b order by b.id", Object[].class)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+    }
+
+    private StreamingOutput streamBooks(boolean ndjson, boolean compact, BookFields fields) {
+        return output -> QuarkusTransaction.requiringNew().run(() -> {
+            // Lazy execution lets H2 hand rows to the forward-only cursor as it reads them instead of
+            // materializing the whole result first. It is only switched on for this query: the others
+            // read a bounded result in one go, and a lazy result keeps the H2 session busy until read
+            Session session = Book.getEntityManager().unwrap(Session.class);
+            session.doWork(connection -> lazyExecution(connection, true));
+            try {
+                writeBooks(output, ndjson, compact, fields);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                // Pooled connections keep session settings
+                session.doWork(connection -> lazyExecution(connection, false));
+            }
+        });
+    }
+
+    private static void lazyExecution(Connection connection, boolean enabled) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET LAZY_QUERY_EXECUTION " + enabled);
+        }
+    }
+
+    private void writeBooks(OutputStream output, boolean ndjson, boolean compact, BookFields fields) throws IOException {
+        // Read-only forward cursor: no dirty-checking snapshots, and each row is detached once written
+        EntityManager em = Book.getEntityManager();
+        BookLinks links = compact ? null : BookLinks.of(uriInfo.getBaseUri());
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+             Stream<Object[]> rows = listBooks(fields)
+                     .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                     .getResultStream()) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            if (!ndjson) {
+                generator.writeStartArray();
+            }
+
+            Iterator<Object[]> it = rows.iterator();
+            int written = 0;
+            while (it.hasNext()) {
+                Book book = fields.toBook(it.next(), "id");
+                generator.writeObject(BookRepresentation.from(book, links, fields));
+                if (fields.isAll()) {
+                    em.detach(book);
+                }
+                if (ndjson) {
+                    generator.writeRaw('\n');
+                }
+                if (++written % STREAM_FETCH_SIZE == 0) {
+                    generator.flush();
+                }
+            }
+
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
     }
 
 
@@ -112,6 +354,10 @@ public class BookResource {
             description = "Book not found with the provided ID",
             content = @Content(mediaType = "application/json")
         ),
+        @APIResponse(
+            responseCode = "304",
+            description = "Not modified - the If-None-Match ETag is still current"
+        ),
         @APIResponse(
             responseCode = "429",
             description = "Too many requests - rate limit exceeded",
@@ -136,18 +382,57 @@ public class BookResource {
     })
     public Response getById(
             @Parameter(description = "Unique identifier of the book", required = true, example = "1")
-            @PathParam("id") long id){
-        Book entity = Book.findById(id);
+            @PathParam("id") long id,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) throws IOException {
+        // Answer revalidations from the remembered version, without loading or serializing the book
+        String etag = bookETags.etag(id);
+        if (BookETags.matches(ifNoneMatch, etag)) {
+            return Response.notModified().header(HttpHeaders.ETAG, etag).build();
+        }
+
+        String baseUri = uriInfo.getBaseUri().toString();
+        byte[] body = bookETags.cachedBody(id, baseUri);
+        if (body != null) {
+            return Response.ok(body, MediaType.APPLICATION_JSON).header(HttpHeaders.ETAG, etag).build();
+        }
+
+        // A single primary key probe; it is not given a JDBC timeout, only refused once the deadline passed
+        deadline.check();
+        Book entity = bookCache.findById(id);
         if(entity == null)
             return Response.status(404).build();
-        return Response.ok(rep(entity)).build();
+
+        etag = bookETags.track(entity);
+        body = objectMapper.writeValueAsBytes(rep(entity));
+        bookETags.storeBody(entity, baseUri, body);
+        return Response.ok(body, MediaType.APPLICATION_JSON).header(HttpHeaders.ETAG, etag).build();
+    }
+
+    @GET
+    @Path("/cache/stats")
+    @Operation(
+        summary = "Book cache statistics",
+        description = "Hit, miss and eviction counters of the read-through cache used by GET /books/{id}"
+    )
+    @APIResponse(
+        responseCode = "200",
+        description = "Current cache statistics",
+        content = @Content(
+            mediaType = "application/json",
+            examples = @ExampleObject(value = "{\"enabled\":true,\"size\":42,\"hits\":1200,\"misses\":42,\"hitRate\":0.966,\"evictions\":0}")
+        )
+    )
+    public Response cacheStats(){
+        return Response.ok(bookCache.stats(), MediaType.APPLICATION_JSON).build();
     }
 
     @GET
     @Path("/search")
+    @Produces({MediaType.APPLICATION_JSON, BookFormats.CBOR, BookFormats.SMILE, BookFormats.PROTOBUF})
     @Operation(
         summary = "Search and filter books",
-        description = "Search books by title, author, or publisher with pagination and sorting capabilities"
+        description = "Search books by title, author, or publisher with pagination and sorting capabilities. "
+            + "With book.search.mode=fulltext, q is matched by whole words and results are ranked by relevance (sort is ignored)"
     )
     @APIResponses(value = {
         @APIResponse(
@@ -198,37 +483,318 @@ public class BookResource {
             @QueryParam("direction") @DefaultValue("asc") String direction,
             @Parameter(description = "Page number (1-based)", example = "1")
             @QueryParam("page") @DefaultValue("1") int page,
-            @Parameter(description = "Number of items per page", example = "10")
-            @QueryParam("size") @DefaultValue("10") int size) {
+            @Parameter(description = "Number of items per page (at least 1)", example = "10")
+            @QueryParam("size") @DefaultValue("10") int size,
+            @Parameter(description = "Opaque keyset cursor taken from _links.next; when present it replaces page")
+            @QueryParam("cursor") String cursor,
+            @Parameter(description = "How totalElements is computed: exact, estimate (cached/approximate) or none", example = "exact")
+            @QueryParam("total") @DefaultValue("exact") String total,
+            @Parameter(description = "Set to false to skip the total entirely (same as total=none)", example = "true")
+            @QueryParam("includeTotal") @DefaultValue("true") boolean includeTotal,
+            @Parameter(description = "links=collection replaces per-book links with one item template in _links.item", example = "links=collection")
+            @HeaderParam("Prefer") String prefer,
+            @Parameter(description = "Comma separated fields to return (id is always included); only these columns are read", example = "id,titulo")
+            @QueryParam("fields") String fields) {
 
+        BookFields fieldset;
+        try {
+            fieldset = BookFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            // Serialized by Jackson, the field name comes from the client
+            return Response.status(400).entity(Map.of("error", e.getMessage())).type(MediaType.APPLICATION_JSON).build();
+        }
+        if (size < 1) {
+            return Response.status(400).entity("{\"error\": \"size must be at least 1\"}").type(MediaType.APPLICATION_JSON).build();
+        }
+        boolean compact = compactLinks(prefer);
         Set<String> allowed = Set.of("id","titulo","autor","editora","anoLancamento","estaDisponivel");
         if (!allowed.contains(sort)) {
             sort = "id";
         }
+        boolean descending = "desc".equalsIgnoreCase(direction);
+        String totalMode = !includeTotal || "none".equalsIgnoreCase(total) ? "none"
+                : "estimate".equalsIgnoreCase(total) ? "estimate" : "exact";
 
-        Sort sortObj = Sort.by(
-                sort,
-                "desc".equalsIgnoreCase(direction) ? Sort.Direction.Descending : Sort.Direction.Ascending
-        );
+        if (fullTextIndex.enabled() && q != null && !q.isBlank()) {
+            return fullTextSearch(q, page, size, cursor, totalMode, compact, fieldset);
+        }
+
+        SearchCursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                after = SearchCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return Response.status(400).entity("{\"error\": \"Invalid cursor\"}").type(MediaType.APPLICATION_JSON).build();
+            }
+            if (!after.sort.equals(sort) || after.descending != descending) {
+                return Response.status(400)
+                    .entity("{\"error\": \"Cursor does not match the requested sort\"}")
+                    .type(MediaType.APPLICATION_JSON)
+                    .build();
+            }
+            page = after.page;
+        }
+
+        // Keyset pagination needs a total order, so ties are broken by id in the same direction
+        String dir = descending ? "desc" : "asc";
+        String orderBy = "id".equals(sort)
+                ? "id " + dir
+                : sort + (descending ? " desc nulls last" : " asc nulls first") + ", id " + dir;
 
         int effectivePage = page <= 1 ? 0 : page - 1;
 
-        PanacheQuery<Book> query = (q == null || q.isBlank())
-                ? Book.findAll(sortObj)
-                : Book.find("lower(titulo) like ?1 or lower(autor) like ?1 or lower(editora) like ?1",
-                            sortObj,
-                            "%" + q.toLowerCase() + "%");
-
-        long totalElements = query.count();
-        long totalPages = (long) Math.ceil((double) totalElements / size);
-        
-        List<Book> books = query.page(effectivePage, size).list();
-        
+        List<String> where = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        Long indexedTotal = null;
+        String searchPath = "none";
+        if (q != null && !q.isBlank()) {
+            List<Long> ids = indexedIds(q);
+            if (ids != null) {
+                // Resolve the matching ids from the trigram index and only fetch those rows
+                searchPath = "index";
+                if (ids.isEmpty()) {
+                    metrics.searchResults(searchPath, 0, "none".equals(totalMode) ? null : 0L);
+                    return linkPreference(negotiated(SearchBookResponse.from(
+                        List.of(), uriInfo, q, sort, direction, page, size,
+                        "none".equals(totalMode) ? null : 0L, null, compact, fieldset
+                    )), compact).build();
+                }
+                params.add(ids);
+                where.add("id in ?" + params.size());
+                indexedTotal = (long) ids.size();
+            } else {
+                // Queries shorter than a trigram cannot use the index, and very common ones are cheaper to scan
+                searchPath = "scan";
+                params.add(BookSearchIndex.containsPattern(q.toLowerCase()));
+                int p = params.size();
+                where.add("(lower(titulo) like ?" + p + " escape '\\' or lower(autor) like ?" + p
+                        + " escape '\\' or lower(editora) like ?" + p + " escape '\\')");
+            }
+        }
+
+        String filter = String.join(" and ", where);
+        Object[] filterParams = params.toArray();
+
+        int offset = effectivePage * size;
+        if (after != null) {
+            // Seek past the last row of the previous page instead of skipping OFFSET rows
+            after.appendPredicate(where, params);
+            offset = 0;
+            if (after.lastValue == null && descending && !"id".equals(sort)) {
+                // Only the null tail is left, where the sort column is constant. H2 2.3 returns no
+                // rows for "x is null order by x desc nulls last" when it walks the index backwards
+                orderBy = "id desc";
+            }
+        }
+        if (indexedTotal != null && "id desc".equals(orderBy)) {
+            // H2 2.3 reads an IN list on the primary key in ascending order yet takes it as sorted
+            // for "id desc"; an expression makes it sort the (small) candidate set instead
+            orderBy = "id + 0 desc";
+        }
+        String whereClause = where.isEmpty() ? "" : " where " + String.join(" and ", where);
+
+        // Fetch one extra row so "next" is known without a count. Rows are read-only: whole
+        // entities without dirty-checking snapshots, or just the requested columns
+        boolean exact = "exact".equals(totalMode) && indexedTotal == null;
+        String selection = fieldset.selection(sort);
+        // Page and total in one statement; the window count is evaluated before the limit
+        List<Object[]> rows = bind(deadline.applyTo(Book.getEntityManager().createQuery(
+                "select " + selection + (exact ? ", count(*) over ()" : "") + " from Book b" + whereClause
+                        + " order by " + orderBy, Object[].class)), params)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setFirstResult(offset)
+                .setMaxResults(size + 1)
+                .getResultList();
+        List<Book> books = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            books.add(fieldset.toBook(row, sort));
+        }
+
+        Long totalElements = null;
+        if (exact) {
+            if (!rows.isEmpty()) {
+                // Behind a cursor the window only sees the rows after it
+                long skipped = after != null ? (long) effectivePage * size : 0;
+                Object[] first = rows.get(0);
+                totalElements = skipped + (Long) first[first.length - 1];
+            } else if (offset == 0 && after == null) {
+                totalElements = 0L;
+            } else {
+                totalElements = count(filter, filterParams);
+            }
+        } else if (indexedTotal != null && !"none".equals(totalMode)) {
+            totalElements = indexedTotal;
+        } else if ("estimate".equals(totalMode)) {
+            totalElements = filter.isEmpty()
+                    ? searchIndex.size()
+                    : countCache.get(filter + filterParams[0], () -> count(filter, filterParams));
+        }
+
+        boolean hasNext = books.size() > size;
+        if (hasNext) {
+            books = books.subList(0, size);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            nextCursor = SearchCursor.after(books.get(books.size() - 1), sort, descending, Math.max(page, 1) + 1).encode();
+        }
+
+        metrics.searchResults(searchPath, books.size(), totalElements);
+
         SearchBookResponse response = SearchBookResponse.from(
-            books, uriInfo, q, sort, direction, page, size, totalElements, totalPages
+            books, uriInfo, q, sort, direction, page, size, totalElements, nextCursor, compact, fieldset
         );
-        
-        return Response.ok(response).build();
+
+        return linkPreference(negotiated(response), compact).build();
+    }
+
+    @GET
+    @Path("/facets")
+    @Operation(
+        summary = "Facet counts",
+        description = "Number of books per editora, per decade of anoLancamento and per estaDisponivel. "
+            + "Without q the counts come from counters kept up to date by every write; with q they are "
+            + "computed for the books matching q (same matching as /books/search) in one grouped query"
+    )
+    @APIResponses(value = {
+        @APIResponse(
+            responseCode = "200",
+            description = "Facet counts, most frequent values first",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = BookFacetsResponse.class),
+                examples = @ExampleObject(value = "{\"total\":3,\"editora\":[{\"value\":\"Addison-Wesley\",\"count\":2},{\"value\":\"Prentice Hall\",\"count\":1}],\"decada\":[{\"value\":2000,\"count\":3}],\"estaDisponivel\":[{\"value\":true,\"count\":3}]}")
+            )
+        ),
+        @APIResponse(
+            responseCode = "429",
+            description = "Too many requests - rate limit exceeded",
+            content = @Content(
+                mediaType = "application/json",
+                examples = @ExampleObject(value = "{\"error\": \"Too many requests. Please try again later.\"}")
+            )
+        ),
+        @APIResponse(
+            responseCode = "504",
+            description = "Gateway timeout - request took too long to process",
+            content = @Content(
+                mediaType = "application/json",
+                examples = @ExampleObject(value = "{\"error\": \"Request timeout\"}")
+            )
+        )
+    })
+    public Response facets(
+            @Parameter(description = "Only count books whose title, author, or publisher match", example = "Clean Code")
+            @QueryParam("q") String q) {
+        if (q == null || q.isBlank()) {
+            return Response.ok(facets.counts(), MediaType.APPLICATION_JSON).build();
+        }
+
+        // Resolve the filter the way search does: full-text or trigram ids, otherwise LIKE
+        List<Long> ids = fullTextIndex.enabled() ? fullTextIndex.matches(q) : indexedIds(q);
+        if (ids != null && ids.isEmpty()) {
+            return Response.ok(BookFacets.fromGroups(List.of()), MediaType.APPLICATION_JSON).build();
+        }
+        String where = ids != null
+                ? "b.id in ?1"
+                : "lower(b.titulo) like ?1 escape '\\' or lower(b.autor) like ?1 escape '\\' or lower(b.editora) like ?1 escape '\\'";
+
+        // One pass: group by all three facets together, then fold the groups per facet
+        List<Object[]> groups = deadline.applyTo(Book.getEntityManager().createQuery(
+                "select b.editora, " + BookFacets.DECADE_HQL + ", b.estaDisponivel, count(b) from Book b"
+                        + " where " + where
+                        + " group by b.editora, " + BookFacets.DECADE_HQL + ", b.estaDisponivel", Object[].class))
+            .setParameter(1, ids != null ? ids : BookSearchIndex.containsPattern(q.toLowerCase()))
+            .getResultList();
+        return Response.ok(BookFacets.fromGroups(groups), MediaType.APPLICATION_JSON).build();
+    }
+
+    private Response fullTextSearch(String q, int page, int size, String cursor, String totalMode,
+                                    boolean compact, BookFields fieldset) {
+        SearchCursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                after = SearchCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return Response.status(400).entity("{\"error\": \"Invalid cursor\"}").type(MediaType.APPLICATION_JSON).build();
+            }
+            if (!BookFullTextIndex.RELEVANCE.equals(after.sort)) {
+                return Response.status(400)
+                    .entity("{\"error\": \"Cursor does not match the requested sort\"}")
+                    .type(MediaType.APPLICATION_JSON)
+                    .build();
+            }
+            page = after.page;
+        }
+
+        // One extra id tells whether there is a next page
+        int offset = (page <= 1 ? 0 : page - 1) * size;
+        BookFullTextIndex.Page ranked = fullTextIndex.search(q, after, offset, size + 1);
+        boolean hasNext = size > 0 && ranked.ids().size() > size;
+        List<Long> ids = hasNext ? ranked.ids().subList(0, size) : ranked.ids();
+
+        // Load the page by id and put it back in rank order
+        Map<Long, Book> byId = new HashMap<>();
+        if (!ids.isEmpty()) {
+            List<Object[]> rows = deadline.applyTo(Book.getEntityManager().createQuery(
+                    "select " + fieldset.selection("id") + " from Book b where b.id in ?1", Object[].class))
+                .setParameter(1, ids)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+            for (Object[] row : rows) {
+                Book book = fieldset.toBook(row, "id");
+                byId.put(book.id, book);
+            }
+        }
+        List<Book> books = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Book book = byId.get(id);
+            if (book != null) {
+                books.add(book);
+            }
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            nextCursor = new SearchCursor(BookFullTextIndex.RELEVANCE, true, Math.max(page, 1) + 1,
+                    ids.get(size - 1), ranked.scores().get(size - 1)).encode();
+        }
+        // The ranking query counts every match anyway, so estimate is exact here
+        Long totalElements = "none".equals(totalMode) ? null : ranked.total();
+        metrics.searchResults("fulltext", books.size(), totalElements);
+
+        SearchBookResponse response = SearchBookResponse.from(
+            books, uriInfo, q, BookFullTextIndex.RELEVANCE, "desc", page, size, totalElements, nextCursor, compact, fieldset
+        );
+        return linkPreference(negotiated(response), compact).build();
+    }
+
+    /**
+     * Ids of the books matching {@code q} from the trigram index, or {@code null} when the query
+     * has to be a LIKE scan: LIKE mode, shorter than a trigram, or more matches than an IN list should bind.
+     */
+    private List<Long> indexedIds(String q) {
+        if ("like".equalsIgnoreCase(searchMode) || !searchIndex.canServe(q)) {
+            return null;
+        }
+        return searchIndex.search(q, maxIndexedIds);
+    }
+
+    /**
+     * Number of books matching a search filter, bounded by the request deadline like the page query.
+     */
+    private long count(String filter, Object[] params) {
+        String where = filter.isEmpty() ? "" : " where " + filter;
+        return bind(deadline.applyTo(Book.getEntityManager().createQuery("select count(b) from Book b" + where, Long.class)),
+                List.of(params)).getSingleResult();
+    }
+
+    private static <T> TypedQuery<T> bind(TypedQuery<T> query, List<Object> params) {
+        for (int i = 0; i < params.size(); i++) {
+            query.setParameter(i + 1, params.get(i));
+        }
+        return query;
     }
 
     @POST
@@ -298,14 +864,161 @@ public class BookResource {
             )
         )
     })
-    @Transactional
     public Response insert(Book book){
-        Book.persist(book);
-        return Response.status(201).entity(rep(book)).build();
+        // The transaction times out with the request, so a slow commit ends in a rollback rather than a late 201
+        return inDeadlineTransaction(() -> {
+            Book.persist(book);
+            searchIndex.index(book);
+            facets.index(book);
+            bookCache.invalidate(book.id);
+            bookETags.changed(book);
+            return Response.status(201).entity(rep(book)).type(MediaType.APPLICATION_JSON).build();
+        });
+    }
+
+    /**
+     * Runs a write in a transaction bounded by the request deadline. When the deadline is what
+     * rolled it back, the failure (usually a RollbackException from the commit) becomes a 504.
+     */
+    private Response inDeadlineTransaction(Callable<Response> work) {
+        try {
+            return QuarkusTransaction.joiningExisting().timeout(deadline.remainingSeconds()).call(work);
+        } catch (RuntimeException e) {
+            if (deadline.expired() && !(e instanceof DeadlineExceededException)) {
+                throw new DeadlineExceededException();
+            }
+            throw e;
+        }
+    }
+
+    @POST
+    @Path("/batch")
+    @Consumes({MediaType.APPLICATION_JSON, NDJSON})
+    @Operation(
+        summary = "Create books in bulk",
+        description = "Creates many books from a JSON array or an NDJSON body. The body is parsed incrementally and " +
+                      "persisted in chunks with JDBC batching, so very large payloads are never held in memory. " +
+                      "Each item reports its own id or error. Supports the Idempotency-Key header for the batch as a whole."
+    )
+    @RequestBody(
+        required = true,
+        description = "JSON array (or newline-delimited JSON) of books to be created",
+        content = @Content(
+            mediaType = "application/json",
+            schema = @Schema(implementation = Book.class, type = SchemaType.ARRAY),
+            examples = @ExampleObject(
+                name = "New books",
+                value = "[{\"titulo\":\"Clean Code\",\"autor\":\"Robert Martin\",\"editora\":\"Prentice Hall\",\"anoLancamento\":2008,\"estaDisponivel\":true}]"
+            )
+        )
+    )
+    @APIResponses(value = {
+        @APIResponse(
+            responseCode = "200",
+            description = "Batch processed - see each item for its outcome",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = BatchCreateResponse.class),
+                examples = @ExampleObject(
+                    name = "Batch result",
+                    value = "{\"created\":1,\"failed\":1,\"items\":[{\"index\":0,\"status\":201,\"id\":5},{\"index\":1,\"status\":400,\"error\":\"Invalid book\"}]}"
+                )
+            )
+        ),
+        @APIResponse(
+            responseCode = "409",
+            description = "Conflict - request with this Idempotency-Key is currently being processed",
+            content = @Content(mediaType = "application/json")
+        ),
+        @APIResponse(
+            responseCode = "429",
+            description = "Too many requests - rate limit exceeded",
+            content = @Content(
+                mediaType = "application/json",
+                examples = @ExampleObject(value = "{\"error\": \"Too many requests. Please try again later.\"}")
+            )
+        ),
+        @APIResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content = @Content(mediaType = "application/json")
+        )
+    })
+    public Response insertBatch(InputStream body) throws IOException {
+        BatchCreateResponse result = new BatchCreateResponse();
+        List<Book> chunk = new ArrayList<>(batchChunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(batchChunkSize);
+        int index = 0;
+
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            // A top-level array is walked element by element; anything else is read as a sequence of root values (NDJSON)
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+
+            while (token != null && token != JsonToken.END_ARRAY) {
+                JsonNode node = parser.readValueAsTree();
+                try {
+                    Book book = objectMapper.treeToValue(node, Book.class);
+                    book.id = null;
+                    chunk.add(book);
+                    chunkIndexes.add(index);
+                } catch (JsonProcessingException e) {
+                    result.failure(index, 400, "Invalid book: " + e.getOriginalMessage());
+                } catch (IllegalArgumentException e) {
+                    result.failure(index, 400, "Invalid book: " + e.getMessage());
+                }
+                index++;
+
+                if (chunk.size() == batchChunkSize) {
+                    persistChunk(chunk, chunkIndexes, result);
+                }
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            // The stream itself is broken; keep what was already stored and report where parsing stopped
+            persistChunk(chunk, chunkIndexes, result);
+            result.failure(index, 400, "Malformed JSON: " + e.getOriginalMessage());
+            return Response.ok(result, MediaType.APPLICATION_JSON).build();
+        }
+
+        persistChunk(chunk, chunkIndexes, result);
+        return Response.ok(result, MediaType.APPLICATION_JSON).build();
+    }
+
+    private void persistChunk(List<Book> chunk, List<Integer> indexes, BatchCreateResponse result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            // One transaction per chunk, bounded by what is left of the request deadline;
+            // Hibernate groups the inserts into JDBC batches on flush
+            QuarkusTransaction.requiringNew().timeout(deadline.remainingSeconds()).run(() -> {
+                EntityManager em = Book.getEntityManager();
+                chunk.forEach(em::persist);
+                em.flush();
+                em.clear();
+            });
+            for (int i = 0; i < chunk.size(); i++) {
+                searchIndex.index(chunk.get(i));
+                facets.index(chunk.get(i));
+                bookETags.changed(chunk.get(i));
+                result.success(indexes.get(i), chunk.get(i).id);
+            }
+        } catch (RuntimeException e) {
+            // A transaction timeout shows up as a rollback on commit, so the deadline decides which one it was
+            if (e instanceof DeadlineExceededException || deadline.expired()) {
+                indexes.forEach(i -> result.failure(i, 504, "Request timeout"));
+            } else {
+                indexes.forEach(i -> result.failure(i, 500, "Chunk could not be stored"));
+            }
+        }
+        chunk.clear();
+        indexes.clear();
     }
 
     @DELETE
-    @Transactional
     @Path("{id}")
     @Operation(
         summary = "Delete a book",
@@ -346,16 +1059,21 @@ public class BookResource {
     public Response delete(
             @Parameter(description = "Unique identifier of the book to delete", required = true, example = "1")
             @PathParam("id") long id){
-        Book entity = Book.findById(id);
-        if(entity == null)
-            return Response.status(404).build();
+        return inDeadlineTransaction(() -> {
+            Book entity = Book.findById(id);
+            if(entity == null)
+                return Response.status(404).build();
 
-        Book.deleteById(id);
-        return Response.noContent().build();
+            Book.deleteById(id);
+            searchIndex.remove(id);
+            facets.remove(id);
+            bookCache.invalidate(id);
+            bookETags.removed(id);
+            return Response.noContent().build();
+        });
     }
 
     @PUT
-    @Transactional
     @Path("{id}")
     @Operation(
         summary = "Update an existing book",
@@ -422,16 +1140,22 @@ public class BookResource {
             @Parameter(description = "Unique identifier of the book to update", required = true, example = "1")
             @PathParam("id") long id,
             Book newBook){
-        Book entity = Book.findById(id);
-        if(entity == null)
-            return Response.status(404).build();
+        return inDeadlineTransaction(() -> {
+            Book entity = Book.findById(id);
+            if(entity == null)
+                return Response.status(404).build();
 
-        entity.titulo = newBook.titulo;
-        entity.autor = newBook.autor;
-        entity.editora = newBook.editora;
-        entity.anoLancamento = newBook.anoLancamento;
-        entity.estaDisponivel = newBook.estaDisponivel;
+            entity.titulo = newBook.titulo;
+            entity.autor = newBook.autor;
+            entity.editora = newBook.editora;
+            entity.anoLancamento = newBook.anoLancamento;
+            entity.estaDisponivel = newBook.estaDisponivel;
+            searchIndex.index(entity);
+            facets.index(entity);
+            bookCache.invalidate(id);
+            bookETags.changed(entity);
 
-        return Response.status(200).entity(rep(entity)).build();
+            return Response.status(200).entity(rep(entity)).type(MediaType.APPLICATION_JSON).build();
+        });
     }
 }
@@ -0,0 +1,220 @@
+package org.acme;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.transaction.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Trigram inverted index over titulo, autor and editora.
+ *
+ * A query string of three or more characters is turned into its trigrams and the
+ * posting lists are intersected, so only candidate ids are ever touched. Candidates
+ * are then verified against the indexed text, which keeps the results identical to
+ * the {@code lower(campo) like '%q%'} semantics used by {@link BookResource#search}.
+ *
+ * Writes reach the index only once their transaction commits, so a rollback (or a failed
+ * optimistic lock) never leaves text in the index that the database does not have.
+ */
+@ApplicationScoped
+public class BookSearchIndex {
+
+    static final int GRAM = 3;
+
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private final Map<Long, IndexedBook> documents = new ConcurrentHashMap<>();
+
+    @Inject
+    TransactionSynchronizationRegistry txRegistry;
+
+    @Transactional
+    void onStart(@Observes StartupEvent event) {
+        Book.<Book>streamAll().forEach(book -> put(book.id, IndexedBook.of(book)));
+    }
+
+    public boolean canServe(String q) {
+        return q != null && normalize(q).length() >= GRAM;
+    }
+
+    /**
+     * Indexes a created or updated book once its transaction commits.
+     */
+    public void index(Book book) {
+        if (book == null || book.id == null) {
+            return;
+        }
+        // Take the text now, the entity may change again before the commit
+        Long id = book.id;
+        IndexedBook indexed = IndexedBook.of(book);
+        afterCommit(() -> put(id, indexed));
+    }
+
+    public void remove(Long id) {
+        afterCommit(() -> drop(id));
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * Returns the ids of every book whose titulo, autor or editora contains {@code q},
+     * ignoring case. Callers must check {@link #canServe(String)} first.
+     */
+    public List<Long> search(String q) {
+        return search(q, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #search(String)}, but gives up and returns {@code null} once more than
+     * {@code max} books match; a LIKE scan serves such a query better than an IN list.
+     */
+    public List<Long> search(String q, int max) {
+        String needle = normalize(q);
+
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams(needle)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting == null || posting.isEmpty()) {
+                return List.of();
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        // Walk the shortest posting list and probe the others
+        List<Long> matches = new ArrayList<>();
+        Set<Long> smallest = lists.get(0);
+        for (Long id : smallest) {
+            if (containsInAll(lists, id)) {
+                IndexedBook doc = documents.get(id);
+                if (doc != null && doc.contains(needle)) {
+                    matches.add(id);
+                    if (matches.size() > max) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    private void put(Long id, IndexedBook indexed) {
+        IndexedBook previous = documents.put(id, indexed);
+        if (previous != null) {
+            // Only drop grams that disappeared, the rest are re-added below anyway
+            Set<String> stale = previous.grams();
+            stale.removeAll(indexed.grams());
+            stale.forEach(gram -> unpost(gram, id));
+        }
+        indexed.grams().forEach(gram -> post(gram, id));
+    }
+
+    private void drop(Long id) {
+        IndexedBook previous = documents.remove(id);
+        if (previous != null) {
+            previous.grams().forEach(gram -> unpost(gram, id));
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (txRegistry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+            action.run();
+            return;
+        }
+        txRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private static boolean containsInAll(List<Set<Long>> lists, Long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void post(String gram, Long id) {
+        // compute() keeps add and unpost atomic per gram, so a set is never dropped while being filled
+        postings.compute(gram, (g, ids) -> {
+            Set<Long> target = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            target.add(id);
+            return target;
+        });
+    }
+
+    private void unpost(String gram, Long id) {
+        postings.computeIfPresent(gram, (g, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * {@code %value%} for {@code like ... escape '\'}, with the wildcards in {@code value} taken literally.
+     */
+    static String containsPattern(String value) {
+        StringBuilder pattern = new StringBuilder(value.length() + 2).append('%');
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == '\\') {
+                pattern.append('\\');
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private record IndexedBook(String titulo, String autor, String editora) {
+
+        static IndexedBook of(Book book) {
+            return new IndexedBook(normalize(book.titulo), normalize(book.autor), normalize(book.editora));
+        }
+
+        Set<String> grams() {
+            Set<String> grams = BookSearchIndex.grams(titulo);
+            grams.addAll(BookSearchIndex.grams(autor));
+            grams.addAll(BookSearchIndex.grams(editora));
+            return grams;
+        }
+
+        boolean contains(String needle) {
+            return titulo.contains(needle) || autor.contains(needle) || editora.contains(needle);
+        }
+    }
+}
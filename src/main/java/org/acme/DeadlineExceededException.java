@@ -0,0 +1,11 @@
+package org.acme;
+
+/**
+ * Thrown by {@link RequestDeadline#check()} once the request ran out of time; mapped to 504.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException() {
+        super("Request deadline exceeded", null, false, false);
+    }
+}
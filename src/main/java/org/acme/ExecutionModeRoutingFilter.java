@@ -0,0 +1,65 @@
+package org.acme;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.Provider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Sends requests for the blocking resources to one of their variants without clients
+ * changing URLs, so execution modes can be compared under the same load.
+ *
+ * {@code app.reactive.enabled=true} serves {@code /books} from {@code /reactive/books}.
+ * Otherwise {@code /vt} variants (virtual threads) are used for every resource with
+ * {@code app.virtual-threads.enabled=true}, or for single ones listed in
+ * {@code app.virtual-threads.resources} (e.g. {@code books}).
+ */
+@Provider
+@PreMatching
+public class ExecutionModeRoutingFilter implements ContainerRequestFilter {
+
+    private static final Set<String> VIRTUAL_THREAD_ROUTABLE = Set.of("books", "hello");
+
+    @ConfigProperty(name = "app.reactive.enabled", defaultValue = "false")
+    boolean reactive;
+
+    @ConfigProperty(name = "app.virtual-threads.enabled", defaultValue = "false")
+    boolean virtualThreads;
+
+    @ConfigProperty(name = "app.virtual-threads.resources")
+    Optional<List<String>> virtualThreadResources;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!reactive && !virtualThreads && virtualThreadResources.isEmpty()) {
+            return;
+        }
+
+        UriInfo uriInfo = requestContext.getUriInfo();
+        String path = uriInfo.getPath(false);
+        String relative = path.startsWith("/") ? path.substring(1) : path;
+        int slash = relative.indexOf('/');
+        String resource = slash < 0 ? relative : relative.substring(0, slash);
+
+        String prefix = null;
+        if (reactive && "books".equals(resource)) {
+            prefix = "reactive/";
+        } else if (VIRTUAL_THREAD_ROUTABLE.contains(resource)
+                && (virtualThreads || virtualThreadResources.map(r -> r.contains(resource)).orElse(false))) {
+            prefix = "vt/";
+        }
+
+        if (prefix != null) {
+            String query = uriInfo.getRequestUri().getRawQuery();
+            requestContext.setRequestUri(URI.create(
+                uriInfo.getBaseUri() + prefix + relative + (query == null ? "" : "?" + query)));
+        }
+    }
+}
@@ -1,33 +1,40 @@
 package org.acme;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.Priority;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
 import jakarta.ws.rs.container.ContainerResponseContext;
 import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 @Provider
 @Priority(1000)
-public class IdempotencyFilter implements ContainerRequestFilter, ContainerResponseFilter {
+public class IdempotencyFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
 
     private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
     private static final String IDEMPOTENCY_KEY_PROPERTY = "idempotency.key";
-    private static final String REQUEST_BODY_PROPERTY = "original.request.body";
+    private static final String REQUEST_DIGEST_PROPERTY = "idempotency.request.digest";
+    private static final String CAPTURE_STATUS_PROPERTY = "idempotency.capture.status";
 
     @Inject
     IdempotencyService idempotencyService;
 
     @Inject
-    ObjectMapper objectMapper;
+    ApiMetrics metrics;
 
     @Override
     public void filter(ContainerRequestContext requestContext) throws IOException {
@@ -39,34 +46,25 @@ public class IdempotencyFilter implements ContainerRequestFilter, ContainerRespo
         String idempotencyKey = requestContext.getHeaderString(IDEMPOTENCY_KEY_HEADER);
 
         if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            // Store the idempotency key for response filter
-            requestContext.setProperty(IDEMPOTENCY_KEY_PROPERTY, idempotencyKey);
-
-            // Check if we've seen this idempotency key before
-            Response cachedResponse = idempotencyService.checkIdempotency(idempotencyKey);
+            // Atomically claim the key; losers get the cached response, a conflict, or 422 for a different payload.
+            // The payload hash is only computed (by draining the body) when there is a stored response to compare to
+            Response cachedResponse = idempotencyService.claim(idempotencyKey, () -> hashBody(requestContext));
 
             if (cachedResponse != null) {
                 // Return cached response or conflict
+                metrics.idempotencyReplay(cachedResponse.getStatus());
                 requestContext.abortWith(cachedResponse);
                 return;
             }
+            metrics.idempotencyMiss();
 
-            // Mark this key as being processed
-            idempotencyService.markAsProcessing(idempotencyKey);
-
-            // Cache the request body so it can be read again by the endpoint
-            if (requestContext.hasEntity()) {
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                InputStream entityStream = requestContext.getEntityStream();
-                byte[] buffer = new byte[1024];
-                int length;
-                while ((length = entityStream.read(buffer)) != -1) {
-                    baos.write(buffer, 0, length);
-                }
-                byte[] requestBody = baos.toByteArray();
-                requestContext.setEntityStream(new ByteArrayInputStream(requestBody));
-                requestContext.setProperty(REQUEST_BODY_PROPERTY, requestBody);
-            }
+            // Only the winner stores its response, so a replay or 409 is never cached over it
+            requestContext.setProperty(IDEMPOTENCY_KEY_PROPERTY, idempotencyKey);
+
+            // Hash the body as the endpoint reads it, without buffering a copy
+            DigestInputStream digestStream = new DigestInputStream(requestContext.getEntityStream(), newDigest());
+            requestContext.setEntityStream(digestStream);
+            requestContext.setProperty(REQUEST_DIGEST_PROPERTY, digestStream);
         }
     }
 
@@ -82,26 +80,114 @@ public class IdempotencyFilter implements ContainerRequestFilter, ContainerRespo
         if (idempotencyKey != null && !idempotencyKey.isBlank()) {
             int statusCode = responseContext.getStatus();
 
-            // Only cache successful responses (2xx) or client errors (4xx)
-            if (statusCode >= 200 && statusCode < 500) {
-                // Get response body and serialize it to JSON
-                Object entity = responseContext.getEntity();
-                String responseBody = "";
-
-                if (entity != null) {
-                    try {
-                        responseBody = objectMapper.writeValueAsString(entity);
-                    } catch (Exception e) {
-                        responseBody = entity.toString();
-                    }
+            // Only cache successful responses (2xx) or client errors (4xx); 429 says "try again later", not "this failed"
+            if (statusCode >= 200 && statusCode < 500 && statusCode != 429) {
+                if (responseContext.hasEntity()) {
+                    // The body is captured by aroundWriteTo while it is serialized for the client
+                    requestContext.setProperty(CAPTURE_STATUS_PROPERTY, statusCode);
+                } else {
+                    idempotencyService.storeResponse(idempotencyKey, statusCode, new byte[0], requestHash(requestContext));
                 }
-
-                // Store the response for future requests with the same idempotency key
-                idempotencyService.storeResponse(idempotencyKey, statusCode, responseBody);
             } else {
-                // For server errors (5xx), remove the processing mark to allow retry
+                // For server errors (5xx) and 429, remove the processing mark to allow retry
                 idempotencyService.removeKey(idempotencyKey);
             }
         }
     }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        Integer statusCode = (Integer) context.getProperty(CAPTURE_STATUS_PROPERTY);
+        if (statusCode == null) {
+            context.proceed();
+            return;
+        }
+
+        // Tee the serialized entity: one Jackson pass serves both the client and the idempotency store
+        String idempotencyKey = (String) context.getProperty(IDEMPOTENCY_KEY_PROPERTY);
+        CapturingOutputStream capture = new CapturingOutputStream(context.getOutputStream());
+        context.setOutputStream(capture);
+        try {
+            context.proceed();
+        } catch (IOException | RuntimeException e) {
+            idempotencyService.removeKey(idempotencyKey);
+            throw e;
+        }
+
+        byte[] digest = requestHash(context.getProperty(REQUEST_DIGEST_PROPERTY));
+        idempotencyService.storeResponse(idempotencyKey, statusCode, capture.captured(), digest);
+    }
+
+    private static byte[] requestHash(ContainerRequestContext requestContext) {
+        return requestHash(requestContext.getProperty(REQUEST_DIGEST_PROPERTY));
+    }
+
+    private static byte[] requestHash(Object property) {
+        if (!(property instanceof DigestInputStream digestStream)) {
+            return null;
+        }
+        // Deserializers may stop before trailing whitespace; hash whatever is left so replays compare equal
+        try {
+            digestStream.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            // Stream already closed by the reader, everything it consumed is in the digest
+        }
+        return digestStream.getMessageDigest().digest();
+    }
+
+    private static byte[] hashBody(ContainerRequestContext requestContext) {
+        MessageDigest digest = newDigest();
+        try (InputStream body = new DigestInputStream(requestContext.getEntityStream(), digest)) {
+            body.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new WebApplicationException(Response.status(400)
+                .entity("{\"error\": \"Could not read request body\"}")
+                .type(MediaType.APPLICATION_JSON)
+                .build());
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class CapturingOutputStream extends OutputStream {
+        private final OutputStream delegate;
+        private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        CapturingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            copy.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            copy.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        byte[] captured() {
+            return copy.toByteArray();
+        }
+    }
 }
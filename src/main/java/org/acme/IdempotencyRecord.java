@@ -0,0 +1,14 @@
+package org.acme;
+
+/**
+ * What an idempotency key maps to: a request still being processed (status 0) or the
+ * response it produced, together with the SHA-256 of the request body that produced it.
+ */
+public record IdempotencyRecord(int statusCode, byte[] responseBody, byte[] requestHash) {
+
+    public static final IdempotencyRecord PROCESSING = new IdempotencyRecord(0, null, null);
+
+    public boolean isProcessing() {
+        return statusCode == 0;
+    }
+}
@@ -1,118 +1,125 @@
 package org.acme;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
-
-import java.time.Instant;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency for keyed POSTs on top of a pluggable {@link IdempotencyStore}.
+ *
+ * With {@code idempotency.store=memory} (the default) the heap store is the only backend.
+ * With {@code idempotency.store=jdbc} the database is the source of truth shared by every
+ * instance, and the heap store stays in front of it as a near cache: completed responses
+ * seen by this instance are replayed without a database round trip.
+ */
 @ApplicationScoped
 public class IdempotencyService {
 
-    private static final long IDEMPOTENCY_KEY_TTL_HOURS = 24;
+    private static final byte[] PROCESSING_BODY =
+        "{\"error\": \"Request with this idempotency key is currently being processed\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] MISMATCH_BODY =
+        "{\"error\": \"Idempotency key was already used with a different request body\"}".getBytes(StandardCharsets.UTF_8);
+
+    @ConfigProperty(name = "idempotency.store", defaultValue = "memory")
+    String storeType;
 
-    private final Map<String, IdempotencyRecord> idempotencyStore = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService cleanupScheduler = Executors.newScheduledThreadPool(1);
+    @Inject
+    InMemoryIdempotencyStore memory;
 
-    public IdempotencyService() {
-        // Schedule cleanup of expired idempotency keys every hour
-        cleanupScheduler.scheduleAtFixedRate(this::cleanupExpiredKeys, 1, 1, TimeUnit.HOURS);
+    @Inject
+    Instance<JdbcIdempotencyStore> jdbcStore;
+
+    private IdempotencyStore durable;
+
+    @PostConstruct
+    void init() {
+        durable = "jdbc".equalsIgnoreCase(storeType) ? jdbcStore.get() : null;
     }
 
-    public Response checkIdempotency(String idempotencyKey) {
+    /**
+     * Claims the key for the calling request.
+     *
+     * @param requestHash computes the hash of the incoming body; only called when a stored response
+     *                    has to be checked against it
+     * @return {@code null} when the caller won the claim and should process the request, otherwise
+     *         the response to send instead (the cached result, 409 while the winner is still running,
+     *         or 422 when the key was used for a different body)
+     */
+    public Response claim(String idempotencyKey, Supplier<byte[]> requestHash) {
         if (idempotencyKey == null || idempotencyKey.isBlank()) {
             return null; // No idempotency key provided, proceed normally
         }
 
-        IdempotencyRecord record = idempotencyStore.get(idempotencyKey);
-
-        if (record != null) {
-            if (record.isExpired()) {
-                idempotencyStore.remove(idempotencyKey);
-                return null; // Expired, allow new request
+        IdempotencyRecord existing;
+        if (durable == null) {
+            existing = memory.claim(idempotencyKey);
+        } else {
+            IdempotencyRecord local = memory.get(idempotencyKey);
+            if (local != null && !local.isProcessing()) {
+                return toResponse(local, requestHash);
             }
-
-            if (record.isProcessing()) {
-                // Request is currently being processed
-                return Response.status(409)
-                    .entity("{\"error\": \"Request with this idempotency key is currently being processed\"}")
-                    .build();
+            existing = durable.claim(idempotencyKey);
+            if (existing == null) {
+                memory.put(idempotencyKey, IdempotencyRecord.PROCESSING);
+            } else if (!existing.isProcessing()) {
+                memory.put(idempotencyKey, existing);
             }
-
-            // Return cached response
-            return Response.status(record.getStatusCode())
-                .entity(record.getResponseBody())
-                .build();
         }
 
-        return null; // No record found, proceed with request
-    }
-
-    public void markAsProcessing(String idempotencyKey) {
-        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            idempotencyStore.put(idempotencyKey, new IdempotencyRecord());
-        }
+        return existing == null ? null : toResponse(existing, requestHash);
     }
 
-    public void storeResponse(String idempotencyKey, int statusCode, String responseBody) {
+    public void storeResponse(String idempotencyKey, int statusCode, byte[] responseBody, byte[] requestHash) {
         if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            idempotencyStore.put(idempotencyKey,
-                new IdempotencyRecord(statusCode, responseBody,
-                    Instant.now().plusSeconds(IDEMPOTENCY_KEY_TTL_HOURS * 3600)));
+            memory.complete(idempotencyKey, statusCode, responseBody, requestHash);
+            if (durable != null) {
+                durable.complete(idempotencyKey, statusCode, responseBody, requestHash);
+            }
         }
     }
 
     public void removeKey(String idempotencyKey) {
         if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            idempotencyStore.remove(idempotencyKey);
+            memory.release(idempotencyKey);
+            if (durable != null) {
+                durable.release(idempotencyKey);
+            }
         }
     }
 
-    private void cleanupExpiredKeys() {
-        Instant now = Instant.now();
-        idempotencyStore.entrySet().removeIf(entry -> entry.getValue().isExpired());
+    public long size() {
+        return memory.size();
     }
 
-    private static class IdempotencyRecord {
-        private final int statusCode;
-        private final String responseBody;
-        private final Instant expiresAt;
-        private final boolean processing;
-
-        // Constructor for processing state
-        public IdempotencyRecord() {
-            this.statusCode = 0;
-            this.responseBody = null;
-            this.expiresAt = Instant.now().plusSeconds(300); // 5 minutes for processing
-            this.processing = true;
-        }
-
-        // Constructor for completed request
-        public IdempotencyRecord(int statusCode, String responseBody, Instant expiresAt) {
-            this.statusCode = statusCode;
-            this.responseBody = responseBody;
-            this.expiresAt = expiresAt;
-            this.processing = false;
-        }
-
-        public int getStatusCode() {
-            return statusCode;
-        }
-
-        public String getResponseBody() {
-            return responseBody;
+    private static Response toResponse(IdempotencyRecord record, Supplier<byte[]> requestHash) {
+        if (record.isProcessing()) {
+            // Request is currently being processed
+            return Response.status(409)
+                .entity(PROCESSING_BODY)
+                .type(MediaType.APPLICATION_JSON)
+                .build();
         }
 
-        public boolean isExpired() {
-            return Instant.now().isAfter(expiresAt);
+        if (record.requestHash() != null && !MessageDigest.isEqual(record.requestHash(), requestHash.get())) {
+            // Same key, different payload: replaying the old response would hide a client bug
+            return Response.status(422)
+                .entity(MISMATCH_BODY)
+                .type(MediaType.APPLICATION_JSON)
+                .build();
         }
 
-        public boolean isProcessing() {
-            return processing;
-        }
+        // Return cached response
+        return Response.status(record.statusCode())
+            .entity(record.responseBody())
+            .type(MediaType.APPLICATION_JSON)
+            .build();
     }
 }
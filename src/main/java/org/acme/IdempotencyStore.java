@@ -0,0 +1,19 @@
+package org.acme;
+
+/**
+ * Backend for {@link IdempotencyService}. Implementations must make {@link #claim} atomic:
+ * for a given key exactly one caller may get {@code null} until the key is released or expires.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Claims the key as processing.
+     *
+     * @return {@code null} when the caller now owns the key, otherwise the record already stored for it
+     */
+    IdempotencyRecord claim(String key);
+
+    void complete(String key, int statusCode, byte[] responseBody, byte[] requestHash);
+
+    void release(String key);
+}
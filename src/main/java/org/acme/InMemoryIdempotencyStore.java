@@ -0,0 +1,93 @@
+package org.acme;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap idempotency store, used on its own or as the near cache in front of {@link JdbcIdempotencyStore}.
+ *
+ * Records expire individually (processing marks after {@code idempotency.processing.ttl.seconds},
+ * completed responses after {@code idempotency.ttl.hours}) through Caffeine's timing wheel, and
+ * the whole store is capped at {@code idempotency.max-bytes}, evicting the least recently used
+ * records first.
+ */
+@ApplicationScoped
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    // Rough per-entry overhead on top of key and body bytes
+    private static final int RECORD_OVERHEAD_BYTES = 96;
+
+    @ConfigProperty(name = "idempotency.ttl.hours", defaultValue = "24")
+    long ttlHours;
+
+    @ConfigProperty(name = "idempotency.processing.ttl.seconds", defaultValue = "300")
+    long processingTtlSeconds;
+
+    @ConfigProperty(name = "idempotency.max-bytes", defaultValue = "67108864")
+    long maxBytes;
+
+    private Cache<String, IdempotencyRecord> records;
+
+    @PostConstruct
+    void init() {
+        long processingTtl = TimeUnit.SECONDS.toNanos(processingTtlSeconds);
+        long completedTtl = TimeUnit.HOURS.toNanos(ttlHours);
+
+        records = Caffeine.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher((String key, IdempotencyRecord record) ->
+                RECORD_OVERHEAD_BYTES + key.length() * 2 + (record.responseBody() == null ? 0 : record.responseBody().length))
+            .expireAfter(new Expiry<String, IdempotencyRecord>() {
+                @Override
+                public long expireAfterCreate(String key, IdempotencyRecord record, long currentTime) {
+                    return record.isProcessing() ? processingTtl : completedTtl;
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, IdempotencyRecord record, long currentTime, long currentDuration) {
+                    return record.isProcessing() ? processingTtl : completedTtl;
+                }
+
+                @Override
+                public long expireAfterRead(String key, IdempotencyRecord record, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .scheduler(Scheduler.systemScheduler())
+            .build();
+    }
+
+    @Override
+    public IdempotencyRecord claim(String key) {
+        return records.asMap().putIfAbsent(key, IdempotencyRecord.PROCESSING);
+    }
+
+    @Override
+    public void complete(String key, int statusCode, byte[] responseBody, byte[] requestHash) {
+        records.put(key, new IdempotencyRecord(statusCode, responseBody, requestHash));
+    }
+
+    @Override
+    public void release(String key) {
+        records.invalidate(key);
+    }
+
+    public IdempotencyRecord get(String key) {
+        return records.getIfPresent(key);
+    }
+
+    public void put(String key, IdempotencyRecord record) {
+        records.put(key, record);
+    }
+
+    public long size() {
+        return records.estimatedSize();
+    }
+}
@@ -0,0 +1,234 @@
+package org.acme;
+
+import io.agroal.api.AgroalDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Idempotency store kept in the application database, so every instance pointed at the
+ * same database sees the same keys and a restart does not forget them.
+ *
+ * Claims are a plain insert against the primary key, which the database makes atomic across
+ * instances. Completed responses are queued and written behind in JDBC batches, so the POST
+ * hot path never waits on an extra round trip; until the batch lands, other instances keep
+ * answering 409 for the key.
+ *
+ * Every claim carries a random token, and the deferred write and {@link #release} only touch
+ * the row while it still holds that token: a response that was already on its way to the
+ * database when its key was released cannot overwrite a newer claim of the same key.
+ */
+@ApplicationScoped
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private static final Logger LOG = Logger.getLogger(JdbcIdempotencyStore.class);
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @ConfigProperty(name = "idempotency.ttl.hours", defaultValue = "24")
+    long ttlHours;
+
+    @ConfigProperty(name = "idempotency.processing.ttl.seconds", defaultValue = "300")
+    long processingTtlSeconds;
+
+    @ConfigProperty(name = "idempotency.jdbc.flush.millis", defaultValue = "50")
+    long flushMillis;
+
+    @ConfigProperty(name = "idempotency.jdbc.batch-size", defaultValue = "200")
+    int batchSize;
+
+    private final ConcurrentLinkedQueue<PendingWrite> pending = new ConcurrentLinkedQueue<>();
+    // Tokens of the keys this instance claimed and has not written or released yet
+    private final Map<String, Long> claims = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor();
+
+    @PostConstruct
+    void init() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists idempotency_record ("
+                + "idem_key varchar(512) primary key, "
+                + "status_code int not null, "
+                + "response_body blob, "
+                + "request_hash varbinary(32), "
+                + "claim_token bigint, "
+                + "expires_at bigint not null)");
+            statement.execute("alter table idempotency_record add column if not exists claim_token bigint");
+            statement.execute("create index if not exists idx_idempotency_expires on idempotency_record(expires_at)");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not create the idempotency table", e);
+        }
+
+        writer.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        // Expired rows are found through the expires_at index, so cleanup only touches what expired
+        writer.scheduleWithFixedDelay(this::deleteExpired, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writer.shutdown();
+        flush();
+    }
+
+    @Override
+    public IdempotencyRecord claim(String key) {
+        long now = System.currentTimeMillis();
+        try (Connection connection = dataSource.getConnection()) {
+            // Second attempt only happens after an expired row was removed
+            for (int attempt = 0; attempt < 2; attempt++) {
+                long token = ThreadLocalRandom.current().nextLong();
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "insert into idempotency_record (idem_key, status_code, claim_token, expires_at) values (?, 0, ?, ?)")) {
+                    insert.setString(1, key);
+                    insert.setLong(2, token);
+                    insert.setLong(3, now + TimeUnit.SECONDS.toMillis(processingTtlSeconds));
+                    insert.executeUpdate();
+                    claims.put(key, token);
+                    return null;
+                } catch (SQLException e) {
+                    if (!UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                        throw e;
+                    }
+                }
+
+                try (PreparedStatement select = connection.prepareStatement(
+                        "select status_code, response_body, request_hash, expires_at from idempotency_record where idem_key = ?")) {
+                    select.setString(1, key);
+                    try (ResultSet rs = select.executeQuery()) {
+                        if (rs.next() && rs.getLong(4) > now) {
+                            return new IdempotencyRecord(rs.getInt(1), rs.getBytes(2), rs.getBytes(3));
+                        }
+                    }
+                }
+
+                // Expired (or released meanwhile): only delete the row if it is still the expired one
+                try (PreparedStatement delete = connection.prepareStatement(
+                        "delete from idempotency_record where idem_key = ? and expires_at <= ?")) {
+                    delete.setString(1, key);
+                    delete.setLong(2, now);
+                    delete.executeUpdate();
+                }
+            }
+            // Someone else re-claimed the key between our delete and insert
+            return IdempotencyRecord.PROCESSING;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not claim idempotency key", e);
+        }
+    }
+
+    @Override
+    public void complete(String key, int statusCode, byte[] responseBody, byte[] requestHash) {
+        Long token = claims.get(key);
+        if (token == null) {
+            // Released meanwhile, or never claimed here
+            return;
+        }
+        pending.add(new PendingWrite(key, token, statusCode, responseBody, requestHash,
+            System.currentTimeMillis() + TimeUnit.HOURS.toMillis(ttlHours)));
+        if (pending.size() >= batchSize) {
+            writer.execute(this::flush);
+        }
+    }
+
+    @Override
+    public void release(String key) {
+        Long token = claims.remove(key);
+        pending.removeIf(write -> write.key.equals(key));
+        if (token == null) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement delete = connection.prepareStatement(
+                 "delete from idempotency_record where idem_key = ? and claim_token = ?")) {
+            delete.setString(1, key);
+            delete.setLong(2, token);
+            delete.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not release idempotency key", e);
+        }
+    }
+
+    void flush() {
+        List<PendingWrite> batch;
+        while (!(batch = drain()).isEmpty()) {
+            if (!write(batch)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Takes up to one batch of queued responses off the queue.
+     */
+    List<PendingWrite> drain() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        PendingWrite write;
+        while (batch.size() < batchSize && (write = pending.poll()) != null) {
+            batch.add(write);
+        }
+        return batch;
+    }
+
+    /**
+     * Stores a drained batch; rows whose claim was released in between are left alone.
+     */
+    boolean write(List<PendingWrite> batch) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement update = connection.prepareStatement(
+                 "update idempotency_record set status_code = ?, response_body = ?, request_hash = ?, expires_at = ?, claim_token = null"
+                     + " where idem_key = ? and claim_token = ?")) {
+            for (PendingWrite w : batch) {
+                update.setInt(1, w.statusCode);
+                update.setBytes(2, w.responseBody);
+                update.setBytes(3, w.requestHash);
+                update.setLong(4, w.expiresAt);
+                update.setString(5, w.key);
+                update.setLong(6, w.token);
+                update.addBatch();
+            }
+            update.executeBatch();
+            return true;
+        } catch (SQLException e) {
+            // The claims stay as processing and expire, so a retry is possible later
+            LOG.warnf(e, "Could not write %d idempotency responses", batch.size());
+            return false;
+        } finally {
+            for (PendingWrite w : batch) {
+                claims.remove(w.key, w.token);
+            }
+        }
+    }
+
+    private void deleteExpired() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement delete = connection.prepareStatement("delete from idempotency_record where expires_at <= ?")) {
+            delete.setLong(1, System.currentTimeMillis());
+            delete.executeUpdate();
+        } catch (SQLException e) {
+            LOG.warn("Could not delete expired idempotency records", e);
+        }
+    }
+
+    record PendingWrite(String key, long token, int statusCode, byte[] responseBody, byte[] requestHash, long expiresAt) {
+    }
+}
@@ -0,0 +1,38 @@
+package org.acme;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+/**
+ * Distribution settings for the meters we plan capacity from.
+ *
+ * Request timers come from the Quarkus HTTP binder ({@code http.server.requests}, tagged
+ * with the URI template, so one series per endpoint rather than per id). They and the
+ * search size summaries publish p50/p95/p99 plus histogram buckets, so percentiles can
+ * also be aggregated across instances in Prometheus.
+ */
+@Singleton
+public class MetricsConfig {
+
+    @Produces
+    @Singleton
+    public MeterFilter percentiles() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                String name = id.getName();
+                if (name.equals("http.server.requests") || name.startsWith("books.search.")) {
+                    return DistributionStatisticConfig.builder()
+                            .percentiles(0.5, 0.95, 0.99)
+                            .percentilesHistogram(true)
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        };
+    }
+}
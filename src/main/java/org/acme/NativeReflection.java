@@ -0,0 +1,27 @@
+package org.acme;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Types a native image only reaches through reflection.
+ *
+ * Resource methods return {@link jakarta.ws.rs.core.Response}, so Quarkus cannot see which
+ * classes Jackson will serialize; they are listed here along with the serializer Jackson
+ * instantiates from {@code @JsonSerialize}. H2 loads its full-text functions and trigger
+ * by class name when {@code book.search.mode=fulltext}.
+ */
+@RegisterForReflection(targets = {
+    BookRepresentation.class,
+    BookRepresentationSerializer.class,
+    SearchBookResponse.class,
+    SearchBookResponse.PaginationMetadata.class,
+    BatchCreateResponse.class,
+    BatchCreateResponse.Item.class,
+    BookFacetsResponse.class,
+    BookFacetsResponse.FacetCount.class
+}, classNames = {
+    "org.h2.fulltext.FullText",
+    "org.h2.fulltext.FullText$FullTextTrigger"
+})
+public class NativeReflection {
+}
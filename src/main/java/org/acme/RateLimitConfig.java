@@ -0,0 +1,54 @@
+package org.acme;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+import io.smallrye.config.WithName;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@ConfigMapping(prefix = "rate.limit")
+public interface RateLimitConfig {
+
+    /**
+     * Requests allowed per window for clients without a known API key.
+     */
+    @WithDefault("10")
+    int requests();
+
+    Window window();
+
+    /**
+     * Token cost per endpoint, keyed by {@code ResourceClass.method}. Unlisted endpoints cost 1.
+     */
+    Map<String, Integer> cost();
+
+    /**
+     * Named limits that API keys can be assigned to.
+     */
+    Map<String, Tier> tier();
+
+    /**
+     * API key (sent as {@code X-API-Key}) to tier name.
+     */
+    @WithName("api-key")
+    Map<String, String> apiKeys();
+
+    /**
+     * Remote addresses whose {@code X-Forwarded-For}/{@code X-Real-IP} headers are believed.
+     */
+    @WithName("trusted-proxies")
+    Optional<List<String>> trustedProxies();
+
+    interface Window {
+        @WithDefault("60")
+        int seconds();
+    }
+
+    interface Tier {
+        int requests();
+
+        Window window();
+    }
+}
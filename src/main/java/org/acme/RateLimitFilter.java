@@ -1,45 +1,112 @@
 package org.acme;
 
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.net.SocketAddress;
+import jakarta.annotation.Priority;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.Priorities;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.Provider;
-import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.util.List;
+
+// Before IdempotencyFilter (1000): a rejected request must not claim, or be stored under, an idempotency key
 @Provider
-public class RateLimitFilter implements ContainerRequestFilter {
+@Priority(Priorities.AUTHENTICATION - 100)
+public class RateLimitFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String API_KEY_HEADER = "X-API-Key";
+    private static final String DECISION_PROPERTY = "rate.limit.decision";
 
+    // Limits, costs and proxies are read through the service: providers are created during
+    // static init, before the runtime RateLimitConfig mapping exists
     @Inject
     RateLimiterService rateLimiterService;
 
-    @ConfigProperty(name = "rate.limit.requests", defaultValue = "10")
-    int maxRequests;
+    @Inject
+    ApiMetrics metrics;
+
+    @Context
+    ResourceInfo resourceInfo;
 
-    @ConfigProperty(name = "rate.limit.window.seconds", defaultValue = "60")
-    int windowSeconds;
+    @Context
+    HttpServerRequest httpRequest;
 
     @Override
     public void filter(ContainerRequestContext requestContext) {
-        String clientIp = getClientIp(requestContext);
+        // Known API keys get their own bucket and tier, everyone else is limited per client address
+        String apiKey = requestContext.getHeaderString(API_KEY_HEADER);
+        String tier = rateLimiterService.tierOf(apiKey);
+        String clientId = tier != null ? "key:" + apiKey : "ip:" + getClientIp(requestContext);
 
-        if (!rateLimiterService.allowRequest(clientIp)) {
+        RateLimiterService.Decision decision = rateLimiterService.acquire(clientId, tier, route());
+        requestContext.setProperty(DECISION_PROPERTY, decision);
+        metrics.rateLimit(tier, decision.allowed());
+
+        if (!decision.allowed()) {
             // Rate limit exceeded
             requestContext.abortWith(
                 Response.status(429)
                     .entity("{\"error\": \"Too many requests. Please try again later.\"}")
-                    .header("X-RateLimit-Limit", maxRequests)
-                    .header("X-RateLimit-Remaining", 0)
-                    .header("Retry-After", windowSeconds)
+                    .type(MediaType.APPLICATION_JSON)
+                    .header("X-RateLimit-Limit", decision.limit())
+                    .header("X-RateLimit-Remaining", decision.remaining())
+                    .header("X-RateLimit-Reset", decision.reset())
+                    .header("Retry-After", Math.max(1, decision.retryAfter()))
                     .build()
             );
         }
     }
 
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        RateLimiterService.Decision decision = (RateLimiterService.Decision) requestContext.getProperty(DECISION_PROPERTY);
+        if (decision == null || !decision.allowed()) {
+            return;
+        }
+        MultivaluedMap<String, Object> headers = responseContext.getHeaders();
+        headers.putSingle("X-RateLimit-Limit", decision.limit());
+        headers.putSingle("X-RateLimit-Remaining", decision.remaining());
+        headers.putSingle("X-RateLimit-Reset", decision.reset());
+    }
+
+    private String route() {
+        if (resourceInfo == null || resourceInfo.getResourceMethod() == null) {
+            return null;
+        }
+        // Declaring class, so the /vt variants of a resource share its costs and buckets
+        return resourceInfo.getResourceMethod().getDeclaringClass().getSimpleName()
+            + "." + resourceInfo.getResourceMethod().getName();
+    }
+
     private String getClientIp(ContainerRequestContext requestContext) {
+        SocketAddress remote = httpRequest.remoteAddress();
+        String remoteIp = remote == null ? "unknown" : remote.hostAddress();
+
+        // Forwarding headers are only believed when they come from a configured proxy
+        List<String> trusted = rateLimiterService.trustedProxies();
+        if (!trusted.contains(remoteIp)) {
+            return remoteIp;
+        }
+
         String xForwardedFor = requestContext.getHeaderString("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
+            // Walk from the closest hop back, skipping our own proxies; the first other address is the client
+            String[] hops = xForwardedFor.split(",");
+            for (int i = hops.length - 1; i >= 0; i--) {
+                String hop = hops[i].trim();
+                if (!hop.isEmpty() && !trusted.contains(hop)) {
+                    return hop;
+                }
+            }
         }
 
         String xRealIp = requestContext.getHeaderString("X-Real-IP");
@@ -47,7 +114,6 @@ public class RateLimitFilter implements ContainerRequestFilter {
             return xRealIp;
         }
 
-        // Fallback to a default identifier if IP is not available
-        return "unknown";
+        return remoteIp;
     }
 }
@@ -1,49 +1,155 @@
 package org.acme;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * GCRA (generic cell rate algorithm) rate limiter.
+ *
+ * Each client is a single {@link AtomicLong} holding its theoretical arrival time (TAT):
+ * one token is worth {@code window / requests} and a burst of up to {@code requests}
+ * tokens is tolerated. This is a smooth sliding window, so there is no 2x burst at window
+ * edges, and a request is a CAS instead of a lock. A request of cost {@code n} advances
+ * the TAT by {@code n} tokens at once.
+ *
+ * Every route with a configured cost draws from its own bucket of the client, so a run of
+ * searches or batches is throttled on its own and never uses up the budget of plain reads
+ * (or of another costly route). Routes without a cost share one bucket.
+ * Limits are validated at startup.
+ */
+@Startup
 @ApplicationScoped
 public class RateLimiterService {
 
-    private static final int MAX_REQUESTS = 10; // 10 requests
-    private static final long WINDOW_SIZE_MS = 60_000; // per minute
+    private static final long MAX_TRACKED_CLIENTS = 100_000;
 
-    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    @Inject
+    RateLimitConfig config;
 
-    public boolean allowRequest(String clientId) {
-        TokenBucket bucket = buckets.computeIfAbsent(clientId, k -> new TokenBucket());
-        return bucket.tryConsume();
+    private Cache<String, AtomicLong> buckets;
+    private Limit defaultLimit;
+    private final Map<String, Limit> tierLimits = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        defaultLimit = limit("rate.limit", config.requests(), config.window().seconds());
+        config.tier().forEach((name, tier) ->
+                tierLimits.put(name, limit("rate.limit.tier." + name, tier.requests(), tier.window().seconds())));
+
+        int longestWindow = config.window().seconds();
+        for (RateLimitConfig.Tier tier : config.tier().values()) {
+            longestWindow = Math.max(longestWindow, tier.window().seconds());
+        }
+
+        // A client idle for a whole window is back to a full burst, so dropping it loses nothing;
+        // the size bound keeps a scan of spoofed client ids from growing the map without limit
+        buckets = Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_CLIENTS)
+                .expireAfterAccess(Duration.ofSeconds(longestWindow))
+                .scheduler(Scheduler.systemScheduler())
+                .build();
+    }
+
+    /**
+     * Tier assigned to an API key, or {@code null} for unknown keys and anonymous clients.
+     */
+    public String tierOf(String apiKey) {
+        return apiKey == null ? null : config.apiKeys().get(apiKey);
     }
 
-    private static class TokenBucket {
-        private int tokens;
-        private long lastRefillTimestamp;
+    public List<String> trustedProxies() {
+        return config.trustedProxies().orElse(List.of());
+    }
+
+    public Limit defaultLimit() {
+        return defaultLimit;
+    }
+
+    public Limit limitFor(String tierName) {
+        Limit limit = tierName == null ? null : tierLimits.get(tierName);
+        return limit == null ? defaultLimit : limit;
+    }
+
+    public boolean allowRequest(String clientId) {
+        return tryAcquire(clientId, defaultLimit, 1).allowed();
+    }
 
-        public TokenBucket() {
-            this.tokens = MAX_REQUESTS;
-            this.lastRefillTimestamp = System.currentTimeMillis();
+    /**
+     * Charges a request of the route ({@code ResourceClass.method}) to the client's bucket for it.
+     */
+    public Decision acquire(String clientId, String tierName, String route) {
+        Integer cost = config.cost().get(route);
+        if (cost == null) {
+            return tryAcquire(clientId, limitFor(tierName), 1);
         }
+        return tryAcquire(clientId + "#" + route, limitFor(tierName), cost);
+    }
+
+    public Decision tryAcquire(String clientId, Limit limit, int cost) {
+        AtomicLong tat = buckets.get(clientId, k -> new AtomicLong(Long.MIN_VALUE));
+        // A cost above the burst could never succeed, so it is capped at a full bucket
+        long increment = limit.emissionIntervalNanos * Math.min(Math.max(cost, 1), limit.requests);
+        long now = System.nanoTime();
 
-        public synchronized boolean tryConsume() {
-            refill();
-            if (tokens > 0) {
-                tokens--;
-                return true;
+        while (true) {
+            long current = tat.get();
+            long start = current == Long.MIN_VALUE ? now : Math.max(current, now);
+            long next = start + increment;
+            if (next - now > limit.windowNanos) {
+                return new Decision(false, limit.requests,
+                        remaining(limit, start - now),
+                        toSeconds(start - now),
+                        toSeconds(next - now - limit.windowNanos));
+            }
+            if (tat.compareAndSet(current, next)) {
+                return new Decision(true, limit.requests, remaining(limit, next - now), toSeconds(next - now), 0);
             }
-            return false;
         }
+    }
 
-        private void refill() {
-            long now = System.currentTimeMillis();
-            long timePassed = now - lastRefillTimestamp;
+    public long trackedClients() {
+        return buckets.estimatedSize();
+    }
 
-            if (timePassed >= WINDOW_SIZE_MS) {
-                tokens = MAX_REQUESTS;
-                lastRefillTimestamp = now;
-            }
+    private static Limit limit(String prefix, int requests, int windowSeconds) {
+        if (requests <= 0 || windowSeconds <= 0) {
+            throw new IllegalStateException(prefix + ".requests and " + prefix
+                    + ".window.seconds must be positive, got " + requests + " and " + windowSeconds);
         }
+        return Limit.of(requests, windowSeconds);
+    }
+
+    private static int remaining(Limit limit, long backlogNanos) {
+        return (int) Math.max(0, (limit.windowNanos - backlogNanos) / limit.emissionIntervalNanos);
+    }
+
+    private static long toSeconds(long nanos) {
+        return Math.max(0, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public record Limit(int requests, long windowNanos, long emissionIntervalNanos) {
+        static Limit of(int requests, int windowSeconds) {
+            long windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+            return new Limit(requests, windowNanos, windowNanos / requests);
+        }
+    }
+
+    /**
+     * Outcome of one acquire: {@code reset} is the seconds until the bucket is full again,
+     * {@code retryAfter} the seconds until the rejected request would fit.
+     */
+    public record Decision(boolean allowed, int limit, int remaining, long reset, long retryAfter) {
     }
 }
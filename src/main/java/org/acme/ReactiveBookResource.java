@@ -0,0 +1,187 @@
+package org.acme;
+
+import io.smallrye.common.annotation.Blocking;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.UriInfo;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking variant of {@link BookResource} under {@code /reactive/books}.
+ *
+ * Reads start on the event loop and are answered there whenever nothing has to be loaded:
+ * revalidations that match the current ETag and books whose serialized JSON is cached. Only
+ * what needs the database is moved to the worker pool, and runs the same code as the
+ * blocking resource. Streamed lists (NDJSON, {@code stream=true}) are rendered in full on the
+ * worker; {@code /books} is the one that streams them with constant memory. Writes go through
+ * the JDBC driver and the idempotency store anyway, so they are dispatched as {@link Blocking},
+ * which also keeps the request filters off the event loop for them.
+ */
+@Path("/reactive/books")
+@Tag(name = "Books (reactive)", description = "Book management operations, served from the event loop where possible")
+@Produces(MediaType.APPLICATION_JSON)
+public class ReactiveBookResource {
+
+    @Inject
+    BookResource books;
+
+    @Inject
+    BookETags bookETags;
+
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, BookResource.NDJSON, BookFormats.CBOR, BookFormats.SMILE, BookFormats.PROTOBUF})
+    @Operation(summary = "Get all books", description = "Same as GET /books; 304 revalidations never leave the event loop")
+    public Uni<Response> getAll(
+            @QueryParam("stream") @DefaultValue("false") boolean stream,
+            @HeaderParam("Accept") String accept,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @HeaderParam("Prefer") String prefer,
+            @QueryParam("fields") String fields) {
+        if (ifNoneMatch != null) {
+            try {
+                String etag = books.listETag(accept, BookResource.compactLinks(prefer), BookFields.parse(fields));
+                if (BookETags.matches(ifNoneMatch, etag)) {
+                    return Uni.createFrom().item(Response.notModified().header(HttpHeaders.ETAG, etag).build());
+                }
+            } catch (IllegalArgumentException e) {
+                // Invalid fields, the blocking resource answers with the 400
+            }
+        }
+        return offload(() -> rendered(books.getAll(stream, accept, ifNoneMatch, prefer, fields)));
+    }
+
+    /**
+     * A streamed list is written once the response is back on the event loop, where its JDBC
+     * cursor may not be read, so it is rendered here on the worker instead.
+     */
+    private static Response rendered(Response response) {
+        if (!(response.getEntity() instanceof StreamingOutput output)) {
+            return response;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try {
+            output.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Response.fromResponse(response).entity(body.toByteArray()).build();
+    }
+
+    @GET
+    @Path("{id}")
+    @Operation(summary = "Get book by ID", description = "Same as GET /books/{id}; cached books are answered from the event loop")
+    public Uni<Response> getById(
+            @PathParam("id") long id,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @Context UriInfo uriInfo) {
+        String etag = bookETags.etag(id);
+        if (BookETags.matches(ifNoneMatch, etag)) {
+            return Uni.createFrom().item(Response.notModified().header(HttpHeaders.ETAG, etag).build());
+        }
+        byte[] body = bookETags.cachedBody(id, uriInfo.getBaseUri().toString());
+        if (body != null) {
+            return Uni.createFrom().item(Response.ok(body, MediaType.APPLICATION_JSON).header(HttpHeaders.ETAG, etag).build());
+        }
+        return offload(() -> {
+            try {
+                return books.getById(id, ifNoneMatch);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @GET
+    @Path("/cache/stats")
+    @Operation(summary = "Book cache statistics", description = "Same as GET /books/cache/stats")
+    public Uni<Response> cacheStats() {
+        return Uni.createFrom().item(books.cacheStats());
+    }
+
+    @GET
+    @Path("/search")
+    @Produces({MediaType.APPLICATION_JSON, BookFormats.CBOR, BookFormats.SMILE, BookFormats.PROTOBUF})
+    @Operation(summary = "Search and filter books", description = "Same as GET /books/search, run on the worker pool")
+    public Uni<Response> search(
+            @QueryParam("q") String q,
+            @QueryParam("sort") @DefaultValue("id") String sort,
+            @QueryParam("direction") @DefaultValue("asc") String direction,
+            @QueryParam("page") @DefaultValue("1") int page,
+            @QueryParam("size") @DefaultValue("10") int size,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("total") @DefaultValue("exact") String total,
+            @QueryParam("includeTotal") @DefaultValue("true") boolean includeTotal,
+            @HeaderParam("Prefer") String prefer,
+            @QueryParam("fields") String fields) {
+        return offload(() -> books.search(q, sort, direction, page, size, cursor, total, includeTotal, prefer, fields));
+    }
+
+    @GET
+    @Path("/facets")
+    @Operation(summary = "Facet counts", description = "Same as GET /books/facets; without q the counters are read on the event loop")
+    public Uni<Response> facets(@QueryParam("q") String q) {
+        if (q == null || q.isBlank()) {
+            return Uni.createFrom().item(books.facets(q));
+        }
+        return offload(() -> books.facets(q));
+    }
+
+    @POST
+    @Blocking
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Create a new book", description = "Same as POST /books, including Idempotency-Key support")
+    public Uni<Response> insert(Book book) {
+        return Uni.createFrom().item(() -> books.insert(book));
+    }
+
+    @POST
+    @Blocking
+    @Path("/batch")
+    @Consumes({MediaType.APPLICATION_JSON, BookResource.NDJSON})
+    @Operation(summary = "Create many books", description = "Same as POST /books/batch")
+    public Uni<Response> insertBatch(InputStream body) {
+        return Uni.createFrom().item(() -> {
+            try {
+                return books.insertBatch(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @DELETE
+    @Blocking
+    @Path("{id}")
+    @Operation(summary = "Delete a book", description = "Same as DELETE /books/{id}")
+    public Uni<Response> delete(@PathParam("id") long id) {
+        return Uni.createFrom().item(() -> books.delete(id));
+    }
+
+    @PUT
+    @Blocking
+    @Path("{id}")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Update a book", description = "Same as PUT /books/{id}")
+    public Uni<Response> update(@PathParam("id") long id, Book newBook) {
+        return Uni.createFrom().item(() -> books.update(id, newBook));
+    }
+
+    private static Uni<Response> offload(Supplier<Response> work) {
+        // Request context and the current request travel with the subscription to the worker
+        return Uni.createFrom().item(work).runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+}
@@ -0,0 +1,80 @@
+package org.acme;
+
+import io.netty.util.Timeout;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.persistence.Query;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deadline of the current request, started by {@link TimeoutInterceptor}.
+ *
+ * The wheel only flips a flag when the deadline passes, so {@link #check()} is a volatile
+ * read. Work that can block for long takes the remaining time with it instead: queries get
+ * it as their JDBC timeout and transactions as their timeout, so the database gives up at
+ * the same moment the client does.
+ *
+ * In {@link BookResource} every query gets the timeout and every write runs in a transaction
+ * bounded by it. Primary key lookups only {@link #check()}. Streamed lists are written after
+ * the response filters ran and the deadline was cancelled, so they are bounded by nothing
+ * but the client reading them.
+ */
+@RequestScoped
+public class RequestDeadline {
+
+    private long expiresAt;
+    private Timeout timer;
+    private volatile boolean expired;
+
+    void start(RequestDeadlines deadlines) {
+        long timeoutNanos = deadlines.timeoutNanos();
+        expiresAt = System.nanoTime() + timeoutNanos;
+        timer = deadlines.schedule(t -> expired = true, timeoutNanos);
+    }
+
+    void cancel() {
+        if (timer != null) {
+            timer.cancel();
+        }
+    }
+
+    /**
+     * Stops the request with a 504 once its deadline has passed.
+     */
+    public void check() {
+        if (expired) {
+            throw new DeadlineExceededException();
+        }
+    }
+
+    /**
+     * Whether the deadline has passed, including the moment before the wheel noticed.
+     */
+    public boolean expired() {
+        return expired || (timer != null && System.nanoTime() - expiresAt >= 0);
+    }
+
+    /**
+     * Remaining time in whole seconds, at least one; {@code 0} when no deadline is running.
+     */
+    public int remainingSeconds() {
+        if (timer == null) {
+            return 0;
+        }
+        check();
+        long remaining = expiresAt - System.nanoTime();
+        if (remaining <= 0) {
+            throw new DeadlineExceededException();
+        }
+        // JDBC timeouts are whole seconds, so round up rather than down to "no timeout"
+        return (int) Math.max(1, (remaining + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public <Q extends Query> Q applyTo(Q query) {
+        int seconds = remainingSeconds();
+        if (seconds > 0) {
+            query.setHint("jakarta.persistence.query.timeout", (int) TimeUnit.SECONDS.toMillis(seconds));
+        }
+        return query;
+    }
+}
@@ -0,0 +1,63 @@
+package org.acme;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Owns the single timing wheel behind every request deadline.
+ *
+ * Scheduling and cancelling on a hashed wheel are O(1) and a cancelled entry is dropped on
+ * the next tick, so a deadline per request costs next to nothing even when almost all of
+ * them are cancelled. Ticks are coarse on purpose: a deadline only has to fire within one
+ * tick of its due time.
+ */
+@ApplicationScoped
+public class RequestDeadlines {
+
+    @ConfigProperty(name = "quarkus.rest.timeout", defaultValue = "30")
+    long timeoutSeconds;
+
+    private final HashedWheelTimer wheel = new HashedWheelTimer(
+            runnable -> {
+                Thread thread = new Thread(runnable, "request-deadlines");
+                thread.setDaemon(true);
+                return thread;
+            },
+            100, TimeUnit.MILLISECONDS, 512);
+    private final LongAdder timedOut = new LongAdder();
+
+    @PreDestroy
+    void stop() {
+        wheel.stop();
+    }
+
+    public long timeoutNanos() {
+        return TimeUnit.SECONDS.toNanos(timeoutSeconds);
+    }
+
+    Timeout schedule(TimerTask task, long delayNanos) {
+        return wheel.newTimeout(task, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTimeout() {
+        timedOut.increment();
+    }
+
+    /**
+     * Requests answered with 504 since startup.
+     */
+    public long timedOut() {
+        return timedOut.sum();
+    }
+
+    public long pending() {
+        return wheel.pendingTimeouts();
+    }
+}
@@ -16,29 +16,49 @@ public class SearchBookResponse {
 
     public static SearchBookResponse from(List<Book> books, UriInfo uriInfo, String query, 
                                         String sort, String direction, int page, int size, 
-                                        long totalElements, long totalPages) {
+                                        Long totalElements, String nextCursor) {
+        return from(books, uriInfo, query, sort, direction, page, size, totalElements, nextCursor, false, BookFields.ALL);
+    }
+
+    /**
+     * With {@code compactLinks} the items carry no links of their own; the collection links
+     * get an {@code item} template ({@code .../books/{id}}) instead. Items only contain
+     * {@code fields}.
+     */
+    public static SearchBookResponse from(List<Book> books, UriInfo uriInfo, String query, 
+                                        String sort, String direction, int page, int size, 
+                                        Long totalElements, String nextCursor, boolean compactLinks,
+                                        BookFields fields) {
         SearchBookResponse response = new SearchBookResponse();
         
         // Convert books to representations
+        BookLinks links = compactLinks ? null : BookLinks.of(uriInfo.getBaseUri());
         response.books = books.stream()
-                .map(book -> BookRepresentation.from(book, uriInfo))
+                .map(book -> BookRepresentation.from(book, links, fields))
                 .toList();
         
-        // Add pagination metadata
+        // Add pagination metadata, totals are null when the client skipped them
         response.pagination = new PaginationMetadata();
         response.pagination.page = page;
         response.pagination.size = size;
         response.pagination.totalElements = totalElements;
-        response.pagination.totalPages = totalPages;
+        response.pagination.totalPages = totalElements == null
+                ? null
+                : (long) Math.ceil((double) totalElements / size);
         
         // Add HATEOAS links
-        response._links = buildLinks(uriInfo, query, sort, direction, page, size, totalPages);
+        response._links = buildLinks(uriInfo, query, sort, direction, page, size,
+                response.pagination.totalPages, nextCursor, fields);
+        if (compactLinks) {
+            response._links.put("item", BookLinks.of(uriInfo.getBaseUri()).itemTemplate);
+        }
         
         return response;
     }
     
     private static Map<String, String> buildLinks(UriInfo uriInfo, String query, String sort, 
-                                                String direction, int page, int size, long totalPages) {
+                                                String direction, int page, int size, Long totalPages,
+                                                String nextCursor, BookFields fields) {
         Map<String, String> links = new HashMap<>();
         URI baseUri = uriInfo.getBaseUri();
         String baseUrl = baseUri + "books/search";
@@ -51,6 +71,9 @@ public class SearchBookResponse {
         params.append("sort=").append(sort)
               .append("&direction=").append(direction)
               .append("&size=").append(size);
+        if (!fields.isAll()) {
+            params.append("&fields=").append(fields.canonical());
+        }
         
         // Self link
         links.put("self", baseUrl + "?" + params + "&page=" + page);
@@ -58,17 +81,19 @@ public class SearchBookResponse {
         // First page
         links.put("first", baseUrl + "?" + params + "&page=1");
         
-        // Last page
-        links.put("last", baseUrl + "?" + params + "&page=" + totalPages);
+        // Last page, only known when a total was computed
+        if (totalPages != null) {
+            links.put("last", baseUrl + "?" + params + "&page=" + totalPages);
+        }
         
         // Previous page
         if (page > 1) {
             links.put("prev", baseUrl + "?" + params + "&page=" + (page - 1));
         }
         
-        // Next page
-        if (page < totalPages) {
-            links.put("next", baseUrl + "?" + params + "&page=" + (page + 1));
+        // Next page, as a keyset cursor so crawlers never walk OFFSETs
+        if (nextCursor != null) {
+            links.put("next", baseUrl + "?" + params + "&cursor=" + nextCursor);
         }
         
         // Other useful links
@@ -80,7 +105,7 @@ public class SearchBookResponse {
     public static class PaginationMetadata {
         public int page;
         public int size;
-        public long totalElements;
-        public long totalPages;
+        public Long totalElements;
+        public Long totalPages;
     }
-}
\ No newline at end of file
+}
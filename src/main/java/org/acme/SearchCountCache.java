@@ -0,0 +1,44 @@
+package org.acme;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived cache of search totals, used when a client asks for {@code total=estimate}.
+ * Counts may be up to the configured TTL stale, which is the point: pagination UIs that
+ * only show "about N results" never pay for an exact count on every page.
+ */
+@ApplicationScoped
+public class SearchCountCache {
+
+    @ConfigProperty(name = "book.search.count.ttl.seconds", defaultValue = "30")
+    long ttlSeconds;
+
+    @ConfigProperty(name = "book.search.count.max-entries", defaultValue = "1000")
+    int maxEntries;
+
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+    public long get(String key, LongSupplier counter) {
+        long now = System.currentTimeMillis();
+        CachedCount cached = counts.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.count;
+        }
+
+        if (counts.size() >= maxEntries) {
+            // Cheap bound: totals are trivially recomputed, so just start over
+            counts.clear();
+        }
+        long count = counter.getAsLong();
+        counts.put(key, new CachedCount(count, now + ttlSeconds * 1000));
+        return count;
+    }
+
+    private record CachedCount(long count, long expiresAt) {
+    }
+}
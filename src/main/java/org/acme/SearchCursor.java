@@ -0,0 +1,121 @@
+package org.acme;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Opaque keyset cursor for {@code /books/search}.
+ *
+ * Carries the sort key and id of the last row of a page, plus the sort it was produced
+ * for and the page number it leads to, so the next page can be fetched with a seek
+ * predicate instead of an OFFSET.
+ */
+public class SearchCursor {
+
+    private static final Set<String> NULLABLE = Set.of("titulo", "autor", "editora");
+    private static final String SEPARATOR = "|";
+
+    public final String sort;
+    public final boolean descending;
+    public final int page;
+    public final long lastId;
+    public final Object lastValue;
+
+    public SearchCursor(String sort, boolean descending, int page, long lastId, Object lastValue) {
+        this.sort = sort;
+        this.descending = descending;
+        this.page = page;
+        this.lastId = lastId;
+        this.lastValue = lastValue;
+    }
+
+    public static SearchCursor after(Book last, String sort, boolean descending, int nextPage) {
+        return new SearchCursor(sort, descending, nextPage, last.id, sortValue(last, sort));
+    }
+
+    public String encode() {
+        String value = lastValue == null
+                ? "n"
+                : "v" + Base64.getUrlEncoder().withoutPadding()
+                        .encodeToString(lastValue.toString().getBytes(StandardCharsets.UTF_8));
+        String raw = String.join(SEPARATOR, sort, descending ? "desc" : "asc",
+                Integer.toString(page), Long.toString(lastId), value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SearchCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 5) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            String sort = parts[0];
+            boolean descending = "desc".equals(parts[1]);
+            int page = Integer.parseInt(parts[2]);
+            long lastId = Long.parseLong(parts[3]);
+            Object value = null;
+            if (parts[4].startsWith("v")) {
+                String text = new String(Base64.getUrlDecoder().decode(parts[4].substring(1)), StandardCharsets.UTF_8);
+                value = parseValue(sort, text);
+            }
+            return new SearchCursor(sort, descending, page, lastId, value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Appends the seek predicate for this cursor to {@code where}/{@code params}, matching
+     * an order of {@code sort, id} with nulls first when ascending and last when descending.
+     */
+    public void appendPredicate(List<String> where, List<Object> params) {
+        String cmp = descending ? "<" : ">";
+        int idParam = params.size() + 1;
+        params.add(lastId);
+
+        if ("id".equals(sort)) {
+            where.add("id " + cmp + " ?" + idParam);
+            return;
+        }
+
+        boolean nullable = NULLABLE.contains(sort);
+        if (lastValue == null) {
+            where.add(descending
+                    ? "(" + sort + " is null and id < ?" + idParam + ")"
+                    : "((" + sort + " is null and id > ?" + idParam + ") or " + sort + " is not null)");
+            return;
+        }
+
+        int valueParam = params.size() + 1;
+        params.add(lastValue);
+        String seek = sort + " " + cmp + " ?" + valueParam
+                + " or (" + sort + " = ?" + valueParam + " and id " + cmp + " ?" + idParam + ")";
+        if (descending && nullable) {
+            seek += " or " + sort + " is null";
+        }
+        where.add("(" + seek + ")");
+    }
+
+    static Object sortValue(Book book, String sort) {
+        return switch (sort) {
+            case "titulo" -> book.titulo;
+            case "autor" -> book.autor;
+            case "editora" -> book.editora;
+            case "anoLancamento" -> book.anoLancamento;
+            case "estaDisponivel" -> book.estaDisponivel;
+            default -> book.id;
+        };
+    }
+
+    private static Object parseValue(String sort, String text) {
+        return switch (sort) {
+            case "anoLancamento", BookFullTextIndex.RELEVANCE -> Integer.parseInt(text);
+            case "estaDisponivel" -> Boolean.parseBoolean(text);
+            case "id" -> Long.parseLong(text);
+            default -> text;
+        };
+    }
+}
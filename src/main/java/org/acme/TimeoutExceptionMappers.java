@@ -0,0 +1,39 @@
+package org.acme;
+
+import jakarta.inject.Inject;
+import jakarta.persistence.QueryTimeoutException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.jboss.logging.Logger;
+import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
+
+/**
+ * Turns an exhausted request deadline, whether noticed by the worker or by the database
+ * cancelling a query, into a 504.
+ */
+public class TimeoutExceptionMappers {
+
+    private static final Logger LOG = Logger.getLogger(TimeoutExceptionMappers.class);
+
+    @Inject
+    RequestDeadlines deadlines;
+
+    @ServerExceptionMapper
+    public Response deadlineExceeded(DeadlineExceededException e) {
+        return timeout();
+    }
+
+    @ServerExceptionMapper
+    public Response queryTimeout(QueryTimeoutException e) {
+        return timeout();
+    }
+
+    private Response timeout() {
+        deadlines.recordTimeout();
+        LOG.debugf("Request timed out (%d so far)", deadlines.timedOut());
+        return Response.status(504)
+            .entity("{\"error\": \"Request timeout\"}")
+            .type(MediaType.APPLICATION_JSON)
+            .build();
+    }
+}
@@ -0,0 +1,18 @@
+package org.acme;
+
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.enterprise.inject.Typed;
+import jakarta.ws.rs.Path;
+
+/**
+ * The book endpoints served from virtual threads instead of the worker pool.
+ *
+ * Reachable directly under {@code /vt/books}, or in place of {@code /books} when
+ * {@link ExecutionModeRoutingFilter} routes it there. Typed to itself so that
+ * injecting {@link BookResource} stays unambiguous.
+ */
+@Path("/vt/books")
+@Typed(VirtualThreadBookResource.class)
+@RunOnVirtualThread
+public class VirtualThreadBookResource extends BookResource {
+}
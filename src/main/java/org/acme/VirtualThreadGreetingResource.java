@@ -0,0 +1,12 @@
+package org.acme;
+
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.ws.rs.Path;
+
+/**
+ * The greeting endpoints served from virtual threads, see {@link VirtualThreadBookResource}.
+ */
+@Path("/vt/hello")
+@RunOnVirtualThread
+public class VirtualThreadGreetingResource extends GreetingResource {
+}
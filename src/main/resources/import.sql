@@ -5,9 +5,9 @@
 -- insert into myentity (id, field) values(3, 'field-3');
 -- alter sequence myentity_seq restart with 4;
 
-insert into book (id, titulo, autor, editora, anoLancamento, estaDisponivel) values (1, 'Dom Casmurro', 'Machado de Assis', 'Editora Record', 1899, true);
-insert into book (id, titulo, autor, editora, anoLancamento, estaDisponivel) values (2, 'O Alquimista', 'Paulo Coelho', 'Editora Rocco', 1988, true);
-insert into book (id, titulo, autor, editora, anoLancamento, estaDisponivel) values (3, 'Capitães da Areia', 'Jorge Amado', 'Companhia das Letras', 1937, false);
-insert into book (id, titulo, autor, editora, anoLancamento, estaDisponivel) values (4, 'Grande Sertão: Veredas', 'Guimarães Rosa', 'Nova Fronteira', 1956, true);
+insert into book (id, titulo, autor, editora, anoLancamento, estaDisponivel, version) values (1, 'Dom Casmurro', 'Machado de Assis', 'Editora Record', 1899, true, 0);
+insert into book (id, titulo, autor, editora, anoLancamento, estaDisponivel, version) values (2, 'O Alquimista', 'Paulo Coelho', 'Editora Rocco', 1988, true, 0);
+insert into book (id, titulo, autor, editora, anoLancamento, estaDisponivel, version) values (3, 'Capitães da Areia', 'Jorge Amado', 'Companhia das Letras', 1937, false, 0);
+insert into book (id, titulo, autor, editora, anoLancamento, estaDisponivel, version) values (4, 'Grande Sertão: Veredas', 'Guimarães Rosa', 'Nova Fronteira', 1956, true, 0);
 
 alter sequence book_seq restart with 5;
@@ -0,0 +1,27 @@
+package org.acme;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
+
+@QuarkusTest
+class ApiMetricsTest {
+
+    @Test
+    void metersAreScrapeable() {
+        given()
+          .when().get("/q/metrics")
+          .then()
+             .statusCode(200)
+             .body(containsString("rate_limit_requests_total{"))
+             .body(containsString("rate_limit_buckets"))
+             .body(containsString("idempotency_requests_total{"))
+             .body(containsString("idempotency_store_size"))
+             .body(containsString("http_server_timeouts_total"))
+             .body(containsString("http_server_deadlines_pending"))
+             .body(containsString("books_search_results_count{"))
+             .body(containsString("books_search_matches_count"));
+    }
+}
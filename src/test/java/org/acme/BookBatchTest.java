@@ -0,0 +1,140 @@
+package org.acme;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.path.json.JsonPath;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@TestProfile(BookBatchTest.SmallChunks.class)
+class BookBatchTest {
+
+    /**
+     * Two books per transaction, so a handful of items spans several chunks.
+     */
+    public static class SmallChunks implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                "rate.limit.requests", "1000000000",
+                "book.batch.chunk-size", "2");
+        }
+    }
+
+    // Unique per test, so the search only finds the books created here
+    private final String autor = "Batch" + UUID.randomUUID().toString().replace("-", "");
+
+    @Test
+    void responseReportsEveryItem() {
+        String body = "[" + book("Batch 0") + ",{\"titulo\":\"Batch 1\",\"anoLancamento\":\"soon\"}," + book("Batch 2") + "]";
+
+        JsonPath result = batch("application/json", body);
+
+        assertEquals(2, result.getInt("created"));
+        assertEquals(1, result.getInt("failed"));
+        Map<Integer, Map<String, Object>> items = byIndex(result);
+        assertEquals(3, items.size());
+
+        Map<String, Object> invalid = items.get(1);
+        assertEquals(400, invalid.get("status"));
+        assertTrue(((String) invalid.get("error")).startsWith("Invalid book"));
+        assertFalse(invalid.containsKey("id"));
+
+        for (int index : new int[] {0, 2}) {
+            Map<String, Object> created = items.get(index);
+            assertEquals(201, created.get("status"));
+            assertFalse(created.containsKey("error"));
+            given().when().get("/books/{id}", ((Number) created.get("id")).longValue())
+              .then()
+                 .statusCode(200);
+        }
+        assertEquals(List.of("Batch 0", "Batch 2"), titles());
+    }
+
+    @Test
+    void failedChunkLeavesItsNeighboursStored() {
+        // The second chunk cannot be stored: titulo is longer than its column
+        List<String> books = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            books.add(book(i == 3 ? "x".repeat(300) : "Batch " + i));
+        }
+
+        JsonPath result = batch("application/json", "[" + String.join(",", books) + "]");
+
+        assertEquals(4, result.getInt("created"));
+        assertEquals(2, result.getInt("failed"));
+        Map<Integer, Map<String, Object>> items = byIndex(result);
+        for (int index : new int[] {2, 3}) {
+            assertEquals(500, items.get(index).get("status"));
+            assertEquals("Chunk could not be stored", items.get(index).get("error"));
+            assertNull(items.get(index).get("id"));
+        }
+        // The valid book of the failed chunk was rolled back with it
+        assertEquals(List.of("Batch 0", "Batch 1", "Batch 4", "Batch 5"), titles());
+    }
+
+    @Test
+    void chunksAreCommittedBeforeTheStreamEnds() {
+        // NDJSON that breaks off after three books: the first chunk is already committed
+        // and the book read before the break is still stored
+        String body = book("Batch 0") + "\n" + book("Batch 1") + "\n" + book("Batch 2") + "\n{\"titulo\": ";
+
+        JsonPath result = batch(BookResource.NDJSON, body);
+
+        assertEquals(3, result.getInt("created"));
+        assertEquals(1, result.getInt("failed"));
+        Map<String, Object> broken = byIndex(result).get(3);
+        assertEquals(400, broken.get("status"));
+        assertTrue(((String) broken.get("error")).startsWith("Malformed JSON"));
+        for (int index = 0; index < 3; index++) {
+            assertNotNull(byIndex(result).get(index).get("id"));
+        }
+        assertEquals(List.of("Batch 0", "Batch 1", "Batch 2"), titles());
+    }
+
+    private JsonPath batch(String contentType, String body) {
+        return given()
+          .contentType(contentType)
+          .body(body.getBytes(StandardCharsets.UTF_8))
+          .when().post("/books/batch")
+          .then()
+             .statusCode(200)
+             .extract().jsonPath();
+    }
+
+    private static Map<Integer, Map<String, Object>> byIndex(JsonPath result) {
+        Map<Integer, Map<String, Object>> items = new HashMap<>();
+        for (Map<String, Object> item : result.<Map<String, Object>>getList("items")) {
+            items.put((Integer) item.get("index"), item);
+        }
+        return items;
+    }
+
+    private List<String> titles() {
+        return given().queryParam("q", autor).queryParam("sort", "titulo").queryParam("size", 100)
+          .when().get("/books/search")
+          .then()
+             .statusCode(200)
+             .extract().jsonPath().getList("books.titulo", String.class);
+    }
+
+    private String book(String titulo) {
+        return "{\"titulo\":\"" + titulo + "\",\"autor\":\"" + autor
+            + "\",\"editora\":\"Batch Press\",\"anoLancamento\":2001,\"estaDisponivel\":true}";
+    }
+}
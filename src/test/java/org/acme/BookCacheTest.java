@@ -0,0 +1,85 @@
+package org.acme;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@QuarkusTest
+@TestProfile(UnlimitedRateProfile.class)
+class BookCacheTest {
+
+    @Inject
+    BookCache bookCache;
+
+    @Test
+    void updateEvictsTheEntry() {
+        long id = create("Cached");
+        Book cached = cached(id);
+        assertSame(cached, cached(id));
+
+        given()
+          .contentType("application/json")
+          .body(book("Cached again"))
+          .when().put("/books/" + id)
+          .then()
+             .statusCode(200);
+
+        assertEquals("Cached again", cached(id).titulo);
+    }
+
+    @Test
+    void deleteEvictsTheEntry() {
+        long id = create("Cached and deleted");
+        assertEquals("Cached and deleted", cached(id).titulo);
+
+        given().when().delete("/books/" + id).then().statusCode(204);
+
+        assertNull(cached(id));
+    }
+
+    @Test
+    void rolledBackWriteLeavesTheCommittedBook() {
+        long id = create("Committed");
+        assertEquals("Committed", cached(id).titulo);
+
+        assertThrows(IllegalStateException.class, () ->
+            QuarkusTransaction.requiringNew().run(() -> {
+                Book book = Book.findById(id);
+                book.titulo = "Rolled back";
+                bookCache.invalidate(id);
+                throw new IllegalStateException("roll back");
+            }));
+
+        assertEquals("Committed", cached(id).titulo);
+    }
+
+    // A fresh transaction per read, so a miss is loaded by its own persistence context as in a request
+    private Book cached(long id) {
+        return QuarkusTransaction.requiringNew().call(() -> bookCache.findById(id));
+    }
+
+    private long create(String titulo) {
+        return ((Number) given()
+          .contentType("application/json")
+          .body(book(titulo))
+          .when().post("/books")
+          .then()
+             .statusCode(201)
+             .extract().path("id")).longValue();
+    }
+
+    private static Map<String, Object> book(String titulo) {
+        return Map.of("titulo", titulo, "autor", "Someone", "editora", "Cache Press",
+            "anoLancamento", 2005, "estaDisponivel", true);
+    }
+}
@@ -0,0 +1,68 @@
+package org.acme;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@TestProfile(UnlimitedRateProfile.class)
+class BookETagsTest {
+
+    @Inject
+    BookETags bookETags;
+
+    @Test
+    void variantTagsWithCommasMatch() {
+        String etag = BookETags.variant("\"7\"", "fields=id,titulo");
+        assertTrue(BookETags.matches(etag, etag));
+        assertTrue(BookETags.matches("\"1\", W/" + etag, etag));
+        assertFalse(BookETags.matches("\"7;fields=id\"", etag));
+        assertFalse(BookETags.matches("\"7\"", etag));
+    }
+
+    @Test
+    void wildcardAndMalformedHeaders() {
+        assertTrue(BookETags.matches("*", "\"7\""));
+        assertFalse(BookETags.matches("7", "\"7\""));
+        assertFalse(BookETags.matches("\"7", "\"7\""));
+    }
+
+    @Test
+    void readRacingADeleteDoesNotRestoreTheTag() {
+        Book book = new Book("Gone", "Someone", "Press", 2001, true);
+        book.id = Long.MAX_VALUE - 7;
+        book.version = 3;
+
+        assertEquals("\"" + book.id + "-3\"", bookETags.track(book));
+        bookETags.removed(book.id);
+        // A read that loaded the row before the delete committed
+        bookETags.track(book);
+        assertNull(bookETags.etag(book.id));
+    }
+
+    @Test
+    void versionSentByTheClientIsIgnored() {
+        long id = ((Number) given()
+          .contentType("application/json")
+          .body(Map.of("titulo", "Versioned", "autor", "Someone", "editora", "Press",
+              "anoLancamento", 2001, "estaDisponivel", true, "version", 42))
+          .when().post("/books")
+          .then()
+             .statusCode(201)
+             .extract().path("id")).longValue();
+
+        given().when().get("/books/{id}", id)
+          .then()
+             .statusCode(200)
+             .header("ETag", "\"" + id + "-0\"");
+    }
+}
@@ -0,0 +1,93 @@
+package org.acme;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.path.json.JsonPath;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+@TestProfile(UnlimitedRateProfile.class)
+class BookFacetsTest {
+
+    // Unique per run, so books created by other tests on the same application do not count
+    private final String editora = "Facet Press " + UUID.randomUUID();
+
+    @Test
+    void countersFollowInsertUpdateAndDelete() {
+        long first = create("Facet one", 1994, true);
+        create("Facet two", 1999, false);
+        assertEquals(2, count(facets(null), "editora", editora));
+
+        given()
+          .contentType("application/json")
+          .body(Map.of("titulo", "Facet one", "autor", "Someone", "editora", "Other " + editora,
+              "anoLancamento", 1994, "estaDisponivel", true))
+          .when().put("/books/" + first)
+          .then()
+             .statusCode(200);
+        assertEquals(1, count(facets(null), "editora", editora));
+
+        given().when().delete("/books/" + first).then().statusCode(204);
+        assertEquals(0, count(facets(null), "editora", "Other " + editora));
+    }
+
+    @Test
+    void queryCountsOnlyMatchingBooks() {
+        create("Zebra facets", 2003, true);
+        create("Zebra facets again", 2008, false);
+        create("Unrelated", 2011, true);
+
+        JsonPath facets = facets("zebra facets");
+        assertEquals(2, count(facets, "editora", editora));
+        assertEquals(2, count(facets, "decada", 2000));
+        assertEquals(1, count(facets, "estaDisponivel", false));
+    }
+
+    @Test
+    void negativeYearsFallInTheSameDecadeWithAndWithoutQuery() {
+        create("Ancient facets", -1995, true);
+
+        JsonPath filtered = facets(editora);
+        assertEquals(1, count(filtered, "decada", -2000));
+        assertEquals(0, count(filtered, "decada", -1990));
+
+        JsonPath counters = facets(null);
+        assertEquals(1, count(counters, "decada", -2000));
+        assertEquals(0, count(counters, "decada", -1990));
+    }
+
+    private long create(String titulo, int ano, boolean disponivel) {
+        return ((Number) given()
+          .contentType("application/json")
+          .body(Map.of("titulo", titulo, "autor", "Someone", "editora", editora,
+              "anoLancamento", ano, "estaDisponivel", disponivel))
+          .when().post("/books")
+          .then()
+             .statusCode(201)
+             .extract().path("id")).longValue();
+    }
+
+    private static JsonPath facets(String q) {
+        return given()
+          .queryParam("q", q == null ? "" : q)
+          .when().get("/books/facets")
+          .then()
+             .statusCode(200)
+             .extract().jsonPath();
+    }
+
+    private static long count(JsonPath facets, String facet, Object value) {
+        for (Map<String, Object> entry : facets.<Map<String, Object>>getList(facet)) {
+            if (value.equals(entry.get("value"))) {
+                return ((Number) entry.get("count")).longValue();
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,136 @@
+package org.acme;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@TestProfile(UnlimitedRateProfile.class)
+class BookFieldsTest {
+
+    // Unique per run, so the search only finds the books created here
+    private final String editora = "Fields" + UUID.randomUUID().toString().replace("-", "");
+
+    @Test
+    void listReadsAndReturnsOnlyTheSelectedColumns() {
+        long id = create("Projected", 1990);
+
+        List<String> statements;
+        CapturedSql.start();
+        try {
+            given().queryParam("fields", "titulo")
+              .when().get("/books")
+              .then()
+                 .statusCode(200)
+                 .body("find { it.id == " + id + " }.titulo", equalTo("Projected"))
+                 .body("find { it.id == " + id + " }", not(hasKey("autor")))
+                 .body("find { it.id == " + id + " }", not(hasKey("anoLancamento")));
+        } finally {
+            statements = CapturedSql.stop();
+        }
+
+        String select = statements.stream()
+            .filter(sql -> sql.contains(" order by "))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError("no list query among " + statements));
+        assertTrue(select.contains("titulo"), select);
+        assertFalse(select.contains("autor"), select);
+        assertFalse(select.contains("editora"), select);
+    }
+
+    @Test
+    void idIsAlwaysReturned() {
+        long id = create("Only publisher", 1991);
+
+        given().queryParam("fields", "editora")
+          .when().get("/books")
+          .then()
+             .statusCode(200)
+             .body("find { it.editora == '" + editora + "' }.id", equalTo((int) id))
+             .body("find { it.editora == '" + editora + "' }", not(hasKey("titulo")));
+    }
+
+    @Test
+    void unknownFieldIsRejected() {
+        given().queryParam("fields", "titulo,nope")
+          .when().get("/books")
+          .then()
+             .statusCode(400)
+             .body("error", equalTo("Unknown field: nope"));
+
+        given().queryParam("fields", "nope")
+          .when().get("/books/search")
+          .then()
+             .statusCode(400)
+             .body("error", equalTo("Unknown field: nope"));
+    }
+
+    @Test
+    void cursorWorksOnAColumnThatIsNotReturned() {
+        create("Older", 1980);
+        create("Newer", 2020);
+
+        String next = given()
+          .queryParam("q", editora).queryParam("fields", "titulo")
+          .queryParam("sort", "anoLancamento").queryParam("size", 1)
+          .when().get("/books/search")
+          .then()
+             .statusCode(200)
+             .body("books[0].titulo", equalTo("Older"))
+             .body("books[0]", not(hasKey("anoLancamento")))
+             .body("_links.self", containsString("fields=id,titulo"))
+             .extract().path("_links.next");
+
+        // The next link keeps the fieldset and the cursor carries the hidden sort value
+        assertTrue(next.contains("fields=id,titulo"), next);
+        given()
+          .when().get(next)
+          .then()
+             .statusCode(200)
+             .body("books[0].titulo", equalTo("Newer"))
+             .body("books[0]", not(hasKey("anoLancamento")));
+    }
+
+    @Test
+    void fieldsetsAreSeparateETagVariants() {
+        create("Tagged", 1995);
+
+        String full = given().when().get("/books").then().statusCode(200).extract().header("ETag");
+        String projected = given().queryParam("fields", "titulo")
+          .when().get("/books").then().statusCode(200).extract().header("ETag");
+        assertNotEquals(full, projected);
+
+        given().queryParam("fields", "titulo").header("If-None-Match", projected)
+          .when().get("/books")
+          .then()
+             .statusCode(304);
+        given().header("If-None-Match", projected)
+          .when().get("/books")
+          .then()
+             .statusCode(200);
+    }
+
+    private long create(String titulo, int ano) {
+        return ((Number) given()
+          .contentType("application/json")
+          .body(Map.of("titulo", titulo, "autor", "Someone", "editora", editora,
+              "anoLancamento", ano, "estaDisponivel", true))
+          .when().post("/books")
+          .then()
+             .statusCode(201)
+             .extract().path("id")).longValue();
+    }
+}
@@ -0,0 +1,253 @@
+package org.acme;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.MessageOptions;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Descriptors.FileDescriptor;
+import com.google.protobuf.DynamicMessage;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@TestProfile(UnlimitedRateProfile.class)
+class BookFormatsResourceTest {
+
+    private static final FieldDescriptorProto.Type INT64 = FieldDescriptorProto.Type.TYPE_INT64;
+    private static final FieldDescriptorProto.Type INT32 = FieldDescriptorProto.Type.TYPE_INT32;
+    private static final FieldDescriptorProto.Type STRING = FieldDescriptorProto.Type.TYPE_STRING;
+    private static final FieldDescriptorProto.Type BOOL = FieldDescriptorProto.Type.TYPE_BOOL;
+    private static final FieldDescriptorProto.Type MESSAGE = FieldDescriptorProto.Type.TYPE_MESSAGE;
+
+    private static FileDescriptor schema;
+
+    // Unique per run, so the search only finds the books created here
+    private final String editora = "Wire" + UUID.randomUUID().toString().replace("-", "");
+
+    /**
+     * book.proto rebuilt as descriptors, see {@link #descriptorsMatchTheServedSchema()}.
+     */
+    @BeforeAll
+    static void buildSchema() throws Exception {
+        DescriptorProto book = DescriptorProto.newBuilder().setName("Book")
+            .addField(field("id", 1, INT64))
+            .addField(field("titulo", 2, STRING))
+            .addField(field("autor", 3, STRING))
+            .addField(field("editora", 4, STRING))
+            .addField(field("ano_lancamento", 5, INT32))
+            .addField(field("esta_disponivel", 6, BOOL))
+            .build();
+        DescriptorProto bookList = DescriptorProto.newBuilder().setName("BookList")
+            .addField(repeated(field("books", 1, MESSAGE).setTypeName(".org.acme.Book")))
+            .addField(field("item_template", 2, STRING))
+            .build();
+        DescriptorProto pagination = DescriptorProto.newBuilder().setName("Pagination")
+            .addField(field("page", 1, INT32))
+            .addField(field("size", 2, INT32))
+            .addField(field("total_elements", 3, INT64))
+            .addField(field("total_pages", 4, INT64))
+            .build();
+        DescriptorProto search = DescriptorProto.newBuilder().setName("SearchBookResponse")
+            .addField(repeated(field("books", 1, MESSAGE).setTypeName(".org.acme.Book")))
+            .addField(field("pagination", 2, MESSAGE).setTypeName(".org.acme.Pagination"))
+            .addField(repeated(field("links", 3, MESSAGE).setTypeName(".org.acme.SearchBookResponse.LinksEntry")))
+            .addNestedType(DescriptorProto.newBuilder().setName("LinksEntry")
+                .addField(field("key", 1, STRING))
+                .addField(field("value", 2, STRING))
+                .setOptions(MessageOptions.newBuilder().setMapEntry(true)))
+            .build();
+        schema = FileDescriptor.buildFrom(FileDescriptorProto.newBuilder()
+            .setName("book.proto")
+            .setPackage("org.acme")
+            .addMessageType(book)
+            .addMessageType(bookList)
+            .addMessageType(pagination)
+            .addMessageType(search)
+            .build(), new FileDescriptor[0]);
+    }
+
+    private static FieldDescriptorProto.Builder field(String name, int number, FieldDescriptorProto.Type type) {
+        return FieldDescriptorProto.newBuilder().setName(name).setNumber(number).setType(type)
+            .setLabel(FieldDescriptorProto.Label.LABEL_OPTIONAL);
+    }
+
+    private static FieldDescriptorProto.Builder repeated(FieldDescriptorProto.Builder field) {
+        return field.setLabel(FieldDescriptorProto.Label.LABEL_REPEATED);
+    }
+
+    @Test
+    void wildcardAcceptGetsJsonEverywhere() {
+        given()
+          .accept("*/*")
+          .contentType("application/json")
+          .body(Map.of("titulo", "Formats", "autor", "Someone", "editora", "Formats Press",
+              "anoLancamento", 2001, "estaDisponivel", true))
+          .when().post("/books")
+          .then()
+             .statusCode(201)
+             .contentType(startsWith("application/json"));
+
+        given().accept("*/*").when().get("/books/facets")
+          .then()
+             .statusCode(200)
+             .contentType(startsWith("application/json"));
+
+        given().accept("*/*").when().get("/books/search")
+          .then()
+             .statusCode(200)
+             .contentType(startsWith("application/json"));
+    }
+
+    @Test
+    void errorsStayJsonWhenABinaryFormatIsAccepted() {
+        given().accept(BookFormats.PROTOBUF).queryParam("fields", "nope")
+          .when().get("/books")
+          .then()
+             .statusCode(400)
+             .contentType(startsWith("application/json"));
+
+        given().accept(BookFormats.CBOR).queryParam("cursor", "not-a-cursor")
+          .when().get("/books/search")
+          .then()
+             .statusCode(400)
+             .contentType(startsWith("application/json"));
+    }
+
+    @Test
+    void descriptorsMatchTheServedSchema() {
+        String served = given().when().get("/book.proto").then().statusCode(200).extract().asString();
+        for (Descriptor message : schema.getMessageTypes()) {
+            for (FieldDescriptor field : message.getFields()) {
+                assertTrue(served.contains(" " + field.getName() + " = " + field.getNumber() + ";"),
+                    message.getName() + "." + field.getName());
+            }
+        }
+    }
+
+    @Test
+    void protobufSearchDecodesAgainstTheSchema() throws Exception {
+        create("Wire one", 2001);
+        create("Wire two", 2002);
+
+        byte[] body = given().accept(BookFormats.PROTOBUF)
+          .queryParam("q", editora).queryParam("fields", "titulo").queryParam("sort", "titulo")
+          .when().get("/books/search")
+          .then()
+             .statusCode(200)
+             .contentType(startsWith(BookFormats.PROTOBUF))
+             .extract().asByteArray();
+
+        Descriptor type = schema.findMessageTypeByName("SearchBookResponse");
+        DynamicMessage response = DynamicMessage.parseFrom(type, body);
+        assertTrue(response.getUnknownFields().asMap().isEmpty());
+
+        List<String> titles = new ArrayList<>();
+        Descriptor book = schema.findMessageTypeByName("Book");
+        for (Object item : (List<?>) response.getField(type.findFieldByName("books"))) {
+            DynamicMessage message = (DynamicMessage) item;
+            assertTrue(message.hasField(book.findFieldByName("id")));
+            // Not selected, so not sent
+            assertFalse(message.hasField(book.findFieldByName("autor")));
+            titles.add((String) message.getField(book.findFieldByName("titulo")));
+        }
+        assertEquals(List.of("Wire one", "Wire two"), titles);
+
+        DynamicMessage pagination = (DynamicMessage) response.getField(type.findFieldByName("pagination"));
+        assertEquals(2L, pagination.getField(schema.findMessageTypeByName("Pagination").findFieldByName("total_elements")));
+
+        boolean itemTemplate = false;
+        for (Object entry : (List<?>) response.getField(type.findFieldByName("links"))) {
+            DynamicMessage link = (DynamicMessage) entry;
+            Descriptor linkType = link.getDescriptorForType();
+            if ("item".equals(link.getField(linkType.findFieldByName("key")))) {
+                itemTemplate = ((String) link.getField(linkType.findFieldByName("value"))).endsWith("/books/{id}");
+            }
+        }
+        assertTrue(itemTemplate);
+    }
+
+    @Test
+    void protobufListDecodesAgainstTheSchema() throws Exception {
+        long id = create("Wire list", 2003);
+
+        byte[] body = given().accept(BookFormats.PROTOBUF)
+          .when().get("/books")
+          .then()
+             .statusCode(200)
+             .contentType(startsWith(BookFormats.PROTOBUF))
+             .extract().asByteArray();
+
+        Descriptor type = schema.findMessageTypeByName("BookList");
+        DynamicMessage list = DynamicMessage.parseFrom(type, body);
+        assertTrue(list.getUnknownFields().asMap().isEmpty());
+        assertTrue(((String) list.getField(type.findFieldByName("item_template"))).endsWith("/books/{id}"));
+
+        Descriptor book = schema.findMessageTypeByName("Book");
+        DynamicMessage created = null;
+        for (Object item : (List<?>) list.getField(type.findFieldByName("books"))) {
+            DynamicMessage message = (DynamicMessage) item;
+            if (Long.valueOf(id).equals(message.getField(book.findFieldByName("id")))) {
+                created = message;
+            }
+        }
+        assertTrue(created != null);
+        assertEquals("Wire list", created.getField(book.findFieldByName("titulo")));
+        assertEquals(editora, created.getField(book.findFieldByName("editora")));
+        assertEquals(2003, created.getField(book.findFieldByName("ano_lancamento")));
+        assertEquals(true, created.getField(book.findFieldByName("esta_disponivel")));
+    }
+
+    @Test
+    void cborAndSmileCarryTheJsonDocument() throws Exception {
+        create("Wire binary", 2004);
+
+        JsonNode json = new ObjectMapper().readTree(searchAs("application/json"));
+        assertEquals(json, decode(new CBORFactory(), searchAs(BookFormats.CBOR)));
+        assertEquals(json, decode(new SmileFactory(), searchAs(BookFormats.SMILE)));
+        assertEquals("Wire binary", json.at("/books/0/titulo").asText());
+    }
+
+    private byte[] searchAs(String format) {
+        return given().accept(format).queryParam("q", editora)
+          .when().get("/books/search")
+          .then()
+             .statusCode(200)
+             .contentType(startsWith(format))
+             .extract().asByteArray();
+    }
+
+    private static JsonNode decode(JsonFactory factory, byte[] body) throws Exception {
+        return new ObjectMapper(factory).readTree(body);
+    }
+
+    private long create(String titulo, int ano) {
+        return ((Number) given()
+          .contentType("application/json")
+          .body(Map.of("titulo", titulo, "autor", "Someone", "editora", editora,
+              "anoLancamento", ano, "estaDisponivel", true))
+          .when().post("/books")
+          .then()
+             .statusCode(201)
+             .extract().path("id")).longValue();
+    }
+}
@@ -0,0 +1,30 @@
+package org.acme;
+
+import jakarta.ws.rs.core.MediaType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BookFormatsTest {
+
+    @Test
+    void defaultsToJson() {
+        assertEquals(MediaType.APPLICATION_JSON_TYPE, BookFormats.negotiate(null));
+        assertEquals(MediaType.APPLICATION_JSON_TYPE, BookFormats.negotiate("*/*"));
+        assertEquals(MediaType.APPLICATION_JSON_TYPE, BookFormats.negotiate("text/html, application/*"));
+    }
+
+    @Test
+    void picksTheHighestQualityBinaryFormat() {
+        assertEquals(BookFormats.CBOR_TYPE, BookFormats.negotiate("application/cbor"));
+        assertEquals(BookFormats.SMILE_TYPE, BookFormats.negotiate("application/json;q=0.5, application/x-jackson-smile"));
+        assertEquals(BookFormats.PROTOBUF_TYPE, BookFormats.negotiate("application/x-protobuf, application/json"));
+        assertEquals(MediaType.APPLICATION_JSON_TYPE, BookFormats.negotiate("application/cbor;q=0, application/json"));
+    }
+
+    @Test
+    void binaryRenderingsGetTheirOwnTag() {
+        assertEquals("\"42\"", BookFormats.etag("\"42\"", MediaType.APPLICATION_JSON_TYPE));
+        assertEquals("\"42;cbor\"", BookFormats.etag("\"42\"", BookFormats.CBOR_TYPE));
+    }
+}
@@ -0,0 +1,86 @@
+package org.acme;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+
+@QuarkusTest
+@TestProfile(BookFullTextSearchTest.FullTextProfile.class)
+class BookFullTextSearchTest {
+
+    public static class FullTextProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("book.search.mode", "fulltext", "rate.limit.requests", "1000000000");
+        }
+    }
+
+    private static boolean seeded;
+
+    // Before each rather than before all: RestAssured only points at the test port once a test runs
+    @BeforeEach
+    void seed() {
+        if (seeded) {
+            return;
+        }
+        seeded = true;
+        create("Refactoring", "Martin Fowler", "Design Press");
+        create("Design Patterns", "Erich Gamma", "Addison-Wesley");
+        create("Domain-Driven Design", "Eric Evans", "Addison-Wesley");
+        create("Clean Code", "Robert Martin", "Prentice Hall");
+    }
+
+    @Test
+    void ranksTitleMatchesAbovePublisherMatches() {
+        given()
+          .when().get("/books/search?q=design&fields=titulo")
+          .then()
+             .statusCode(200)
+             .body("books.titulo", contains("Design Patterns", "Domain-Driven Design", "Refactoring"))
+             .body("pagination.totalElements", is(3));
+    }
+
+    @Test
+    void requiresEveryWord() {
+        given()
+          .queryParam("q", "domain design").queryParam("fields", "titulo")
+          .when().get("/books/search")
+          .then()
+             .statusCode(200)
+             .body("books.titulo", contains("Domain-Driven Design"));
+    }
+
+    @Test
+    void cursorContinuesInRankOrder() {
+        String next = given()
+          .when().get("/books/search?q=design&size=2&fields=titulo")
+          .then()
+             .statusCode(200)
+             .body("books.titulo", contains("Design Patterns", "Domain-Driven Design"))
+             .extract().path("_links.next");
+
+        given()
+          .when().get(next)
+          .then()
+             .statusCode(200)
+             .body("books.titulo", contains("Refactoring"));
+    }
+
+    private static void create(String titulo, String autor, String editora) {
+        given()
+          .contentType("application/json")
+          .body(Map.of("titulo", titulo, "autor", autor, "editora", editora,
+              "anoLancamento", 2000, "estaDisponivel", true))
+          .when().post("/books")
+          .then()
+             .statusCode(201);
+    }
+}
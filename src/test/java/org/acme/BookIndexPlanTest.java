@@ -0,0 +1,189 @@
+package org.acme;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the H2 plans of the statements {@code /books/search} issues: every sort, in both
+ * directions, with and without the LIKE filter, with and without the exact total, has to be
+ * read in index order rather than sorted after a scan. The SQL is the one Hibernate
+ * generated for a real request.
+ *
+ * Index order alone does not bound the exact total: {@code count(*) over ()} needs every
+ * matching row before the first one is returned, so a {@code total=exact} page reads all of
+ * them whatever the sort, where {@code total=none} stops after offset plus page.
+ * {@link #exactTotalReadsEveryMatchingRow} measures that with EXPLAIN ANALYZE.
+ */
+@QuarkusTest
+@TestProfile(UnlimitedRateProfile.class)
+class BookIndexPlanTest {
+
+    private static final List<String> SORTS = List.of("id", "titulo", "autor", "editora", "anoLancamento", "estaDisponivel");
+
+    private static boolean seeded;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    // Through the API, so the search index, facets and caches see the books too
+    @BeforeEach
+    void seed() {
+        if (seeded) {
+            return;
+        }
+        seeded = true;
+        List<Map<String, Object>> books = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            books.add(Map.of("titulo", "Title " + i, "autor", "Author " + i % 40, "editora", "Publisher " + i % 7,
+                "anoLancamento", 1950 + i % 70, "estaDisponivel", i % 3 == 0));
+        }
+        given().contentType("application/json").body(books)
+          .when().post("/books/batch")
+          .then()
+             .statusCode(200);
+    }
+
+    static Stream<Arguments> sortsAndFilters() {
+        return SORTS.stream().flatMap(sort -> Stream.of("none", "exact").flatMap(total -> Stream.of(
+            Arguments.of(sort, false, false, total),
+            Arguments.of(sort, true, false, total),
+            Arguments.of(sort, false, true, total),
+            Arguments.of(sort, true, true, total))));
+    }
+
+    @ParameterizedTest(name = "{0} desc={1} like={2} total={3}")
+    @MethodSource("sortsAndFilters")
+    void sortedPagesAreReadInIndexOrder(String sort, boolean descending, boolean filtered, String total) throws SQLException {
+        // Two letters are shorter than a trigram, so the search falls back to LIKE
+        Map<String, Object> query = filtered
+            ? Map.of("sort", sort, "direction", descending ? "desc" : "asc", "page", 3, "total", total, "q", "ab")
+            : Map.of("sort", sort, "direction", descending ? "desc" : "asc", "page", 3, "total", total);
+
+        String sql = pageQuery(query);
+        assertEquals("exact".equals(total), sql.contains(" over("), sql);
+        String plan = explain(sql);
+        assertTrue(plan.contains("index sorted"), "sorted after a scan:\n" + plan);
+    }
+
+    static Stream<Arguments> sortsAndDirections() {
+        return SORTS.stream().flatMap(sort -> Stream.of(Arguments.of(sort, false), Arguments.of(sort, true)));
+    }
+
+    @ParameterizedTest(name = "{0} desc={1}")
+    @MethodSource("sortsAndDirections")
+    void exactTotalReadsEveryMatchingRow(String sort, boolean descending) throws SQLException {
+        String direction = descending ? "desc" : "asc";
+        // Page 3 of 10: offset 20, and one extra row to know about the next page
+        String none = pageQuery(Map.of("sort", sort, "direction", direction, "page", 3, "total", "none"));
+        String exact = pageQuery(Map.of("sort", sort, "direction", direction, "page", 3, "total", "exact"));
+
+        assertEquals(31, scanCount(none, 20, 11));
+        assertTrue(scanCount(exact, 20, 11) >= bookCount(), "exact total did not see every row");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("sortNames")
+    void indexedCandidatesAreLookedUpByPrimaryKey(String sort) throws SQLException {
+        // The trigram path only sorts its (small) candidate set, which must come from an id index;
+        // either the primary key or idx_book_id_desc, H2 picks whichever it costs lower
+        String plan = explain(pageQuery(Map.of("sort", sort, "q", "Title 12")));
+        assertTrue(plan.contains(": " + idColumn() + " IN("), "candidates not read by id:\n" + plan);
+    }
+
+    static Stream<String> sortNames() {
+        return SORTS.stream();
+    }
+
+    /**
+     * The page statement of one {@code /books/search} request, as Hibernate rendered it.
+     */
+    private static String pageQuery(Map<String, Object> query) {
+        List<String> statements;
+        CapturedSql.start();
+        try {
+            given().queryParams(query)
+              .when().get("/books/search")
+              .then()
+                 .statusCode(200);
+        } finally {
+            statements = CapturedSql.stop();
+        }
+        return statements.stream()
+            .filter(sql -> sql.contains(" order by "))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError("no page query among " + statements));
+    }
+
+    // Resolve the physical column name instead of assuming a naming strategy
+    private String idColumn() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "select column_name from information_schema.columns where table_name = 'BOOK' and lower(column_name) = 'id'");
+             ResultSet rs = statement.executeQuery()) {
+            assertTrue(rs.next(), "no id column");
+            return rs.getString(1);
+        }
+    }
+
+    /**
+     * Rows H2 read from the table to run {@code sql} with the given parameters, from EXPLAIN ANALYZE.
+     */
+    private long scanCount(String sql, Object... params) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("explain analyze " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                assertTrue(rs.next());
+                String plan = rs.getString(1);
+                Matcher scanned = Pattern.compile("scanCount: (\\d+)").matcher(plan);
+                assertTrue(scanned.find(), "no scan count in\n" + plan);
+                return Long.parseLong(scanned.group(1));
+            }
+        }
+    }
+
+    private long bookCount() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select count(*) from Book");
+             ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    // Parameters are left unbound; H2 only needs them for EXPLAIN ANALYZE
+    private String explain(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("explain " + sql);
+             ResultSet rs = statement.executeQuery()) {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+            return plan.toString();
+        }
+    }
+}
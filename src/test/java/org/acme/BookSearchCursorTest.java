@@ -0,0 +1,173 @@
+package org.acme;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.path.json.JsonPath;
+import io.restassured.specification.RequestSpecification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@TestProfile(UnlimitedRateProfile.class)
+class BookSearchCursorTest {
+
+    private static final List<String> SORTS = List.of("id", "titulo", "autor", "editora", "anoLancamento", "estaDisponivel");
+    private static final int SIZE = 3;
+
+    // Unique per test, so the search only finds the books created here
+    private String autor;
+    private final List<Long> created = new ArrayList<>();
+
+    @BeforeEach
+    void createBooks() {
+        autor = "Seek" + UUID.randomUUID().toString().replace("-", "");
+        // Ties on every column, and editora missing on some rows
+        String[] titulos = {"Beta", "Alpha", "Beta", "Gamma", "Alpha", "Beta", "Delta", "Alpha", "Gamma", "Beta", "Alpha"};
+        String[] editoras = {"North", null, "South", "North", null, "North", "South", null, "North", "South", null};
+        for (int i = 0; i < titulos.length; i++) {
+            Map<String, Object> book = new HashMap<>();
+            book.put("titulo", titulos[i]);
+            book.put("autor", autor);
+            book.put("editora", editoras[i]);
+            book.put("anoLancamento", 2000 + i % 3);
+            book.put("estaDisponivel", i % 2 == 0);
+            created.add(((Number) given()
+              .contentType("application/json")
+              .body(book)
+              .when().post("/books")
+              .then()
+                 .statusCode(201)
+                 .extract().path("id")).longValue());
+        }
+    }
+
+    @Test
+    void cursorWalkMatchesOffsetPaging() {
+        for (String sort : SORTS) {
+            for (String direction : List.of("asc", "desc")) {
+                String label = sort + " " + direction;
+                List<Long> byOffset = walkByOffset(sort, direction);
+                List<Long> byCursor = walkByCursor(sort, direction);
+
+                assertEquals(created.size(), new HashSet<>(byCursor).size(), label + " has duplicates or skips");
+                assertEquals(new HashSet<>(created), new HashSet<>(byCursor), label);
+                assertEquals(byOffset, byCursor, label);
+            }
+        }
+    }
+
+    @Test
+    void nullEditoraSortsFirstAscendingAndLastDescending() {
+        List<Long> ascending = walkByCursor("editora", "asc");
+        List<Long> descending = walkByCursor("editora", "desc");
+        List<Long> withoutEditora = List.of(created.get(1), created.get(4), created.get(7), created.get(10));
+
+        assertEquals(withoutEditora, ascending.subList(0, 4));
+        assertEquals(withoutEditora.reversed(), descending.subList(descending.size() - 4, descending.size()));
+    }
+
+    @Test
+    void invalidCursorsAreRejected() {
+        search("titulo", "asc").queryParam("cursor", "not-a-cursor")
+          .when().get("/books/search")
+          .then()
+             .statusCode(400)
+             .body("error", equalTo("Invalid cursor"));
+
+        // Well-formed Base64, but the id is not a number
+        search("titulo", "asc").queryParam("cursor", encode("titulo|asc|2|x|n"))
+          .when().get("/books/search")
+          .then()
+             .statusCode(400)
+             .body("error", equalTo("Invalid cursor"));
+
+        // A year that is not a number
+        String year = Base64.getUrlEncoder().withoutPadding().encodeToString("abc".getBytes(StandardCharsets.UTF_8));
+        search("anoLancamento", "asc").queryParam("cursor", encode("anoLancamento|asc|2|1|v" + year))
+          .when().get("/books/search")
+          .then()
+             .statusCode(400)
+             .body("error", equalTo("Invalid cursor"));
+
+        // A valid cursor taken to another sort or direction
+        String cursor = cursorOf(firstPage("titulo", "asc"));
+        search("autor", "asc").queryParam("cursor", cursor)
+          .when().get("/books/search")
+          .then()
+             .statusCode(400)
+             .body("error", equalTo("Cursor does not match the requested sort"));
+        search("titulo", "desc").queryParam("cursor", cursor)
+          .when().get("/books/search")
+          .then()
+             .statusCode(400)
+             .body("error", equalTo("Cursor does not match the requested sort"));
+    }
+
+    private List<Long> walkByOffset(String sort, String direction) {
+        List<Long> ids = new ArrayList<>();
+        for (int page = 1; page <= (created.size() + SIZE - 1) / SIZE; page++) {
+            ids.addAll(ids(search(sort, direction).queryParam("page", page)
+              .when().get("/books/search")
+              .then()
+                 .statusCode(200)
+                 .extract().jsonPath()));
+        }
+        return ids;
+    }
+
+    private List<Long> walkByCursor(String sort, String direction) {
+        List<Long> ids = new ArrayList<>();
+        JsonPath page = firstPage(sort, direction);
+        ids.addAll(ids(page));
+        for (String cursor = cursorOf(page); cursor != null; cursor = cursorOf(page)) {
+            assertTrue(ids.size() < created.size(), sort + " " + direction + " does not end");
+            page = search(sort, direction).queryParam("cursor", cursor)
+              .when().get("/books/search")
+              .then()
+                 .statusCode(200)
+                 .extract().jsonPath();
+            ids.addAll(ids(page));
+        }
+        return ids;
+    }
+
+    private JsonPath firstPage(String sort, String direction) {
+        return search(sort, direction)
+          .when().get("/books/search")
+          .then()
+             .statusCode(200)
+             .extract().jsonPath();
+    }
+
+    private RequestSpecification search(String sort, String direction) {
+        return given().queryParam("q", autor).queryParam("sort", sort).queryParam("direction", direction)
+          .queryParam("size", SIZE);
+    }
+
+    private static List<Long> ids(JsonPath page) {
+        return page.getList("books.id", Long.class);
+    }
+
+    private static String cursorOf(JsonPath page) {
+        String next = page.getString("_links.next");
+        return next == null ? null : next.substring(next.indexOf("cursor=") + "cursor=".length());
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,92 @@
+package org.acme;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@TestProfile(UnlimitedRateProfile.class)
+class BookSearchIndexTest {
+
+    @Inject
+    BookSearchIndex searchIndex;
+
+    @Test
+    void rolledBackWritesNeverReachTheIndex() {
+        String titulo = "Rollback " + UUID.randomUUID();
+
+        // An exception thrown from the work rolls the transaction back
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () ->
+            QuarkusTransaction.requiringNew().run(() -> {
+                Book book = new Book(titulo, "Someone", "Nowhere", 2000, true);
+                book.persist();
+                searchIndex.index(book);
+                // Not visible before the commit either
+                assertTrue(searchIndex.search(titulo).isEmpty());
+                throw new IllegalStateException("roll back");
+            }));
+        assertEquals("roll back", failure.getMessage());
+
+        assertTrue(searchIndex.search(titulo).isEmpty());
+        assertEquals(0, Book.count("titulo", titulo));
+    }
+
+    @Test
+    void manyMatchesAreLeftToTheScan() {
+        String autor = "Common" + UUID.randomUUID().toString().replace("-", "");
+        for (int i = 0; i < 3; i++) {
+            create("Common " + i, autor);
+        }
+
+        assertEquals(3, searchIndex.search(autor, 3).size());
+        assertNull(searchIndex.search(autor, 2));
+    }
+
+    @Test
+    void wildcardsInShortQueriesAreLiteral() {
+        String autor = "Wildcard" + UUID.randomUUID().toString().replace("-", "");
+        create("Yield 100%", autor);
+        create("Yield 1000", autor);
+        create("Snake a_b", autor);
+        create("Snake axb", autor);
+
+        // Two characters, shorter than a trigram: these go to the LIKE scan
+        assertLiteralMatches("0%", "Yield 100%");
+        assertLiteralMatches("a_", "Snake a_b");
+    }
+
+    private void assertLiteralMatches(String q, String expected) {
+        List<Map<String, Object>> books = given().queryParam("q", q).queryParam("size", 1000)
+          .when().get("/books/search")
+          .then()
+             .statusCode(200)
+             .extract().jsonPath().getList("books");
+        assertTrue(books.stream().anyMatch(book -> expected.equals(book.get("titulo"))), q);
+        for (Map<String, Object> book : books) {
+            String text = (book.get("titulo") + " " + book.get("autor") + " " + book.get("editora")).toLowerCase();
+            assertTrue(text.contains(q), q + " matched " + book.get("titulo"));
+        }
+    }
+
+    private static void create(String titulo, String autor) {
+        given()
+          .contentType("application/json")
+          .body(Map.of("titulo", titulo, "autor", autor, "editora", "Index Press",
+              "anoLancamento", 2001, "estaDisponivel", true))
+          .when().post("/books")
+          .then()
+             .statusCode(201);
+    }
+}
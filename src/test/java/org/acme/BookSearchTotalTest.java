@@ -0,0 +1,106 @@
+package org.acme;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.response.ValidatableResponse;
+import io.restassured.specification.RequestSpecification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+
+@QuarkusTest
+@TestProfile(BookSearchTotalTest.LikeSearch.class)
+class BookSearchTotalTest {
+
+    /**
+     * LIKE scans only, so total=estimate goes through the count cache instead of the
+     * trigram index, which knows its totals anyway.
+     */
+    public static class LikeSearch implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                "rate.limit.requests", "1000000000",
+                "book.search.mode", "like");
+        }
+    }
+
+    // Unique per test, so the search only finds the books created here
+    private String autor;
+
+    @BeforeEach
+    void createBooks() {
+        autor = "Total" + UUID.randomUUID().toString().replace("-", "");
+        for (int i = 0; i < 5; i++) {
+            create("Total " + i);
+        }
+    }
+
+    @Test
+    void exactCountsEveryMatchOnEveryPage() {
+        total("exact", 1).body("books", hasSize(2)).body("pagination.totalElements", equalTo(5)).body("pagination.totalPages", equalTo(3));
+        total("exact", 3).body("books", hasSize(1)).body("pagination.totalElements", equalTo(5));
+        // Past the end the window has no row to carry the count
+        total("exact", 4).body("books", hasSize(0)).body("pagination.totalElements", equalTo(5));
+    }
+
+    @Test
+    void noneLeavesTheTotalOut() {
+        total("none", 1).body("books", hasSize(2)).body("pagination.totalElements", nullValue());
+        search(1).queryParam("includeTotal", false)
+          .when().get("/books/search")
+          .then()
+             .statusCode(200)
+             .body("pagination.totalElements", nullValue());
+    }
+
+    @Test
+    void estimateIsCachedAcrossWrites() {
+        total("estimate", 1).body("pagination.totalElements", equalTo(5));
+        create("Total 5");
+
+        // Within the TTL the cached count is served, the exact one sees the write
+        total("estimate", 1).body("pagination.totalElements", equalTo(5));
+        total("exact", 1).body("pagination.totalElements", equalTo(6));
+    }
+
+    @Test
+    void sizeBelowOneIsRejected() {
+        for (int size : new int[] {0, -1}) {
+            given().queryParam("q", autor).queryParam("size", size)
+              .when().get("/books/search")
+              .then()
+                 .statusCode(400)
+                 .body("error", equalTo("size must be at least 1"));
+        }
+    }
+
+    private ValidatableResponse total(String mode, int page) {
+        return search(page).queryParam("total", mode)
+          .when().get("/books/search")
+          .then()
+             .statusCode(200);
+    }
+
+    private RequestSpecification search(int page) {
+        return given().queryParam("q", autor).queryParam("size", 2).queryParam("page", page);
+    }
+
+    private void create(String titulo) {
+        given()
+          .contentType("application/json")
+          .body(Map.of("titulo", titulo, "autor", autor, "editora", "Total Press",
+              "anoLancamento", 2001, "estaDisponivel", true))
+          .when().post("/books")
+          .then()
+             .statusCode(201);
+    }
+}
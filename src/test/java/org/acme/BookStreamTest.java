@@ -0,0 +1,130 @@
+package org.acme;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@TestProfile(UnlimitedRateProfile.class)
+class BookStreamTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void ndjsonHasOneBookPerLine() throws Exception {
+        long id = create("Streamed line");
+
+        String body = given().accept(BookResource.NDJSON)
+          .when().get("/books")
+          .then()
+             .statusCode(200)
+             .contentType(startsWith(BookResource.NDJSON))
+             .extract().asString();
+
+        List<JsonNode> books = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            books.add(mapper.readTree(line));
+        }
+        assertEquals(listedIds(), ids(books));
+        JsonNode created = books.stream().filter(book -> book.get("id").asLong() == id).findFirst().orElseThrow();
+        assertEquals("Streamed line", created.get("titulo").asText());
+        assertTrue(created.has("_links"));
+    }
+
+    @Test
+    void streamedArrayMatchesTheBufferedList() throws Exception {
+        create("Streamed array");
+
+        String streamed = given().queryParam("stream", true)
+          .when().get("/books")
+          .then()
+             .statusCode(200)
+             .contentType(startsWith("application/json"))
+             .extract().asString();
+        String buffered = given().accept("application/json")
+          .when().get("/books")
+          .then()
+             .statusCode(200)
+             .extract().asString();
+
+        assertEquals(mapper.readTree(buffered), mapper.readTree(streamed));
+    }
+
+    @Test
+    void ndjsonKeepsFieldsAndCompactLinks() throws Exception {
+        create("Streamed fields");
+
+        String body = given().accept(BookResource.NDJSON).header("Prefer", "links=collection")
+          .queryParam("fields", "titulo")
+          .when().get("/books")
+          .then()
+             .statusCode(200)
+             .header("Preference-Applied", "links=collection")
+             .extract().asString();
+
+        for (String line : body.split("\n")) {
+            JsonNode book = mapper.readTree(line);
+            assertTrue(book.has("id"));
+            assertTrue(book.has("titulo"));
+            assertFalse(book.has("autor"));
+            assertFalse(book.has("_links"));
+        }
+    }
+
+    @Test
+    void streamAnswersConditionalRequests() {
+        create("Streamed etag");
+
+        String etag = given().accept(BookResource.NDJSON)
+          .when().get("/books")
+          .then()
+             .statusCode(200)
+             .extract().header("ETag");
+
+        given().accept(BookResource.NDJSON).header("If-None-Match", etag)
+          .when().get("/books")
+          .then()
+             .statusCode(304)
+             .header("ETag", etag);
+        // The JSON list is another representation with its own tag
+        given().accept("application/json").header("If-None-Match", etag)
+          .when().get("/books")
+          .then()
+             .statusCode(200);
+    }
+
+    private List<Long> listedIds() {
+        return given().accept("application/json")
+          .when().get("/books")
+          .then()
+             .statusCode(200)
+             .extract().jsonPath().getList("id", Long.class);
+    }
+
+    private static List<Long> ids(List<JsonNode> books) {
+        return books.stream().map(book -> book.get("id").asLong()).toList();
+    }
+
+    private long create(String titulo) {
+        return ((Number) given()
+          .contentType("application/json")
+          .body(Map.of("titulo", titulo, "autor", "Someone", "editora", "Stream Press",
+              "anoLancamento", 2001, "estaDisponivel", true))
+          .when().post("/books")
+          .then()
+             .statusCode(201)
+             .extract().path("id")).longValue();
+    }
+}
@@ -0,0 +1,40 @@
+package org.acme;
+
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Records the SQL Hibernate sends while a test is capturing, so tests can look at the
+ * statements the application really issues.
+ */
+@PersistenceUnitExtension
+@ApplicationScoped
+public class CapturedSql implements StatementInspector {
+
+    private static final Queue<String> statements = new ConcurrentLinkedQueue<>();
+    private static volatile boolean capturing;
+
+    @Override
+    public String inspect(String sql) {
+        if (capturing) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    static void start() {
+        statements.clear();
+        capturing = true;
+    }
+
+    static List<String> stop() {
+        capturing = false;
+        return new ArrayList<>(statements);
+    }
+}
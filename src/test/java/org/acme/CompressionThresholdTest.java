@@ -0,0 +1,50 @@
+package org.acme;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+@QuarkusTest
+@TestProfile(UnlimitedRateProfile.class)
+class CompressionThresholdTest {
+
+    @Test
+    void smallBodiesAreSentAsIs() {
+        given()
+          .header("Accept-Encoding", "gzip")
+          .queryParam("size", 1)
+          .queryParam("includeTotal", false)
+          .when().get("/books/search")
+          .then()
+             .statusCode(200)
+             .header("Content-Encoding", not(equalTo("gzip")));
+    }
+
+    @Test
+    void largeBodiesAreCompressed() {
+        List<Map<String, Object>> books = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            books.add(Map.of("titulo", "Compressed " + i, "autor", "Someone", "editora", "Gzip Press",
+                "anoLancamento", 2000 + i, "estaDisponivel", true));
+        }
+        given().contentType("application/json").body(books)
+          .when().post("/books/batch")
+          .then()
+             .statusCode(200);
+
+        given()
+          .header("Accept-Encoding", "gzip")
+          .when().get("/books")
+          .then()
+             .statusCode(200)
+             .header("Content-Encoding", equalTo("gzip"));
+    }
+}
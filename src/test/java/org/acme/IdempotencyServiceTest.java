@@ -0,0 +1,98 @@
+package org.acme;
+
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyServiceTest {
+
+    private static final int THREADS = 64;
+    private static final byte[] HASH = "body-hash".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void exactlyOneConcurrentRequestWinsTheKey() throws InterruptedException {
+        IdempotencyService service = newService();
+
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+        for (int i = 0; i < THREADS; i++) {
+            pool.submit(() -> {
+                start.await();
+                Response response = service.claim("same-key", () -> HASH);
+                if (response == null) {
+                    winners.incrementAndGet();
+                } else if (response.getStatus() == 409) {
+                    conflicts.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, winners.get());
+        assertEquals(THREADS - 1, conflicts.get());
+    }
+
+    @Test
+    void completedKeyReplaysTheStoredResponse() {
+        IdempotencyService service = newService();
+        byte[] body = "{\"id\":5}".getBytes(StandardCharsets.UTF_8);
+
+        assertNull(service.claim("key", () -> HASH));
+        service.storeResponse("key", 201, body, HASH);
+
+        Response replay = service.claim("key", () -> HASH);
+        assertEquals(201, replay.getStatus());
+        assertArrayEquals(body, (byte[]) replay.getEntity());
+    }
+
+    @Test
+    void completedKeyRejectsADifferentPayload() {
+        IdempotencyService service = newService();
+
+        assertNull(service.claim("key", () -> HASH));
+        service.storeResponse("key", 201, new byte[0], HASH);
+
+        Response replay = service.claim("key", () -> "other".getBytes(StandardCharsets.UTF_8));
+        assertEquals(422, replay.getStatus());
+    }
+
+    @Test
+    void releasedKeyCanBeClaimedAgain() {
+        IdempotencyService service = newService();
+
+        assertNull(service.claim("key", () -> HASH));
+        service.removeKey("key");
+        assertNull(service.claim("key", () -> HASH));
+    }
+
+    private static IdempotencyService newService() {
+        InMemoryIdempotencyStore memory = new InMemoryIdempotencyStore();
+        memory.ttlHours = 24;
+        memory.processingTtlSeconds = 300;
+        memory.maxBytes = 1024 * 1024;
+        memory.init();
+
+        IdempotencyService service = new IdempotencyService();
+        service.storeType = "memory";
+        service.memory = memory;
+        service.init();
+        return service;
+    }
+}
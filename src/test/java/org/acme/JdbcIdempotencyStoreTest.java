@@ -0,0 +1,129 @@
+package org.acme;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two stores on the same database stand in for two application instances.
+ */
+@QuarkusTest
+class JdbcIdempotencyStoreTest {
+
+    private static final int THREADS = 16;
+    private static final byte[] BODY = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HASH = "body-hash".getBytes(StandardCharsets.UTF_8);
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    private JdbcIdempotencyStore first;
+    private JdbcIdempotencyStore second;
+    private final String key = "key-" + UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        first = newStore();
+        second = newStore();
+    }
+
+    @AfterEach
+    void tearDown() {
+        first.shutdown();
+        second.shutdown();
+    }
+
+    @Test
+    void exactlyOneInstanceWinsAConcurrentClaim() throws InterruptedException {
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger processing = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+        for (int i = 0; i < THREADS; i++) {
+            JdbcIdempotencyStore store = i % 2 == 0 ? first : second;
+            pool.submit(() -> {
+                start.await();
+                IdempotencyRecord record = store.claim(key);
+                if (record == null) {
+                    winners.incrementAndGet();
+                } else if (record.isProcessing()) {
+                    processing.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, winners.get());
+        assertEquals(THREADS - 1, processing.get());
+    }
+
+    @Test
+    void completedResponseIsReplayedOnceFlushed() {
+        assertNull(first.claim(key));
+        first.complete(key, 201, BODY, HASH);
+
+        // Written behind: until the batch lands the key still reads as processing
+        assertTrue(second.claim(key).isProcessing());
+
+        first.flush();
+        IdempotencyRecord replay = second.claim(key);
+        assertEquals(201, replay.statusCode());
+        assertArrayEquals(BODY, replay.responseBody());
+        assertArrayEquals(HASH, replay.requestHash());
+    }
+
+    @Test
+    void releasedKeyCanBeClaimedAgain() {
+        assertNull(first.claim(key));
+        first.release(key);
+        assertNull(second.claim(key));
+    }
+
+    @Test
+    void inFlightWriteDoesNotOverwriteANewerClaim() {
+        assertNull(first.claim(key));
+        first.complete(key, 201, BODY, HASH);
+        // The writer has taken the response off the queue but not stored it yet
+        List<JdbcIdempotencyStore.PendingWrite> inFlight = first.drain();
+        assertEquals(1, inFlight.size());
+
+        first.release(key);
+        assertNull(second.claim(key));
+
+        first.write(inFlight);
+        assertTrue(first.claim(key).isProcessing(), "the stale response replaced the new claim");
+    }
+
+    private JdbcIdempotencyStore newStore() {
+        JdbcIdempotencyStore store = new JdbcIdempotencyStore();
+        store.dataSource = dataSource;
+        store.ttlHours = 24;
+        store.processingTtlSeconds = 300;
+        // Flushes only happen when a test asks for them
+        store.flushMillis = TimeUnit.HOURS.toMillis(1);
+        store.batchSize = 200;
+        store.init();
+        return store;
+    }
+}
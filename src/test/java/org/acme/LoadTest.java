@@ -0,0 +1,303 @@
+package org.acme;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Open-loop load test with latency and throughput budgets.
+ *
+ * Requests are sent on a fixed schedule whether or not earlier ones have finished, and
+ * latency is measured from the time a request was due, not from when it went out, so a
+ * stalled server shows up in the percentiles instead of slowing the generator down.
+ * Rate, duration, mix and budgets come from {@code load-budget.properties}; any key can be
+ * overridden with a system property ({@code -Dload.rate=800}). Run with
+ * {@code mvn verify -Pload}, which also runs {@link LoadIT} against the packaged app.
+ */
+@QuarkusTest
+@Tag("load")
+@TestProfile(UnlimitedRateProfile.class)
+class LoadTest {
+
+    enum Scenario { GET_BY_ID, SEARCH, CREATE, UPDATE, DELETE }
+
+    private static final String[] SEARCH_TERMS = {"title", "author", "publisher 7", "book 12", "au"};
+
+    @TestHTTPResource("/")
+    URI baseUri;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @Test
+    void mixedLoadStaysWithinBudget() throws Exception {
+        Properties budget = loadBudget();
+        int seedBooks = intValue(budget, "load.seed.books");
+        int hotSet = intValue(budget, "load.hot-set");
+        int rate = intValue(budget, "load.rate");
+        Duration warmup = Duration.ofSeconds(intValue(budget, "load.warmup.seconds"));
+        Duration duration = Duration.ofSeconds(intValue(budget, "load.duration.seconds"));
+
+        long[] ids = seed(seedBooks);
+
+        Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+        for (Scenario scenario : Scenario.values()) {
+            mix.put(scenario, intValue(budget, "load.mix." + key(scenario)));
+        }
+
+        run(rate, warmup, mix, hotSet, ids);
+        Run measured = run(rate, duration, mix, hotSet, ids);
+
+        report(measured, duration);
+
+        double seconds = duration.toNanos() / 1e9;
+        double throughput = measured.completed.sum() / seconds;
+        double minThroughput = rate * doubleValue(budget, "load.budget.min-throughput-ratio");
+        assertTrue(throughput >= minThroughput,
+                String.format("throughput %.0f req/s is below the budget of %.0f req/s", throughput, minThroughput));
+
+        double errorRatio = (double) measured.errors.sum() / Math.max(1, measured.completed.sum());
+        assertTrue(errorRatio <= doubleValue(budget, "load.budget.max-error-ratio"),
+                String.format("error ratio %.4f is above the budget", errorRatio));
+
+        for (Scenario scenario : Scenario.values()) {
+            Histogram histogram = measured.latencies.get(scenario);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            double p99 = histogram.getValueAtPercentile(99.0) / 1e6;
+            double limit = doubleValue(budget, "load.budget.p99-millis." + key(scenario));
+            assertTrue(p99 <= limit, String.format("%s p99 %.1f ms is above the budget of %.1f ms", scenario, p99, limit));
+        }
+    }
+
+    private Run run(int rate, Duration duration, Map<Scenario, Integer> mix, int hotSet, long[] ids) {
+        Run run = new Run();
+        Random random = new Random(42);
+        int weights = mix.values().stream().mapToInt(Integer::intValue).sum();
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        AtomicInteger inFlight = new AtomicInteger();
+        for (long i = 0; ; i++) {
+            long due = start + i * interval;
+            if (due >= end) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Scenario scenario = pick(random, mix, weights);
+            HttpRequest request = request(scenario, random, hotSet, ids, run);
+            inFlight.incrementAndGet();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+                // Measured from the due time, so queueing in front of the server counts
+                run.latencies.get(scenario).recordValue(System.nanoTime() - due);
+                run.completed.increment();
+                if (error != null || !expected(scenario, response)) {
+                    run.errors.increment();
+                } else if (scenario == Scenario.CREATE) {
+                    Long id = idOf(response.body());
+                    if (id != null) {
+                        run.created.add(id);
+                    }
+                }
+                inFlight.decrementAndGet();
+            });
+        }
+
+        // Let the tail finish, but never wait forever on a wedged server
+        long drainUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        return run;
+    }
+
+    private HttpRequest request(Scenario scenario, Random random, int hotSet, long[] ids, Run run) {
+        switch (scenario) {
+            case GET_BY_ID:
+                return get("books/" + ids[random.nextInt(Math.min(hotSet, ids.length))]);
+            case SEARCH:
+                String term = SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)].replace(" ", "%20");
+                return get("books/search?q=" + term + "&size=20&total=estimate");
+            case CREATE:
+                return HttpRequest.newBuilder(baseUri.resolve("books"))
+                        .header("Content-Type", "application/json")
+                        .header("Idempotency-Key", UUID.randomUUID().toString())
+                        .POST(HttpRequest.BodyPublishers.ofString(book("Load book " + random.nextInt(1_000_000))))
+                        .build();
+            case UPDATE:
+                return HttpRequest.newBuilder(baseUri.resolve("books/" + ids[random.nextInt(ids.length)]))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(book("Updated book " + random.nextInt(1_000_000))))
+                        .build();
+            default:
+                // Only books created by this run are deleted, so the seeded hot set stays intact
+                Long id = run.created.poll();
+                return HttpRequest.newBuilder(baseUri.resolve("books/" + (id == null ? Long.MAX_VALUE : id)))
+                        .DELETE()
+                        .build();
+        }
+    }
+
+    private static boolean expected(Scenario scenario, HttpResponse<String> response) {
+        int status = response.statusCode();
+        return switch (scenario) {
+            case CREATE -> status == 201;
+            // A delete can find nothing to remove when no create has finished yet
+            case DELETE -> status == 204 || status == 404;
+            default -> status == 200;
+        };
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).GET().build();
+    }
+
+    private static String book(String title) {
+        return "{\"titulo\":\"" + title + "\",\"autor\":\"Load author\",\"editora\":\"Load publisher\","
+                + "\"anoLancamento\":2024,\"estaDisponivel\":true}";
+    }
+
+    private static Long idOf(String body) {
+        int start = body.indexOf("\"id\":") + 5;
+        int end = start;
+        while (end < body.length() && Character.isDigit(body.charAt(end))) {
+            end++;
+        }
+        return end > start ? Long.parseLong(body.substring(start, end)) : null;
+    }
+
+    /**
+     * Inserts the books in one batch and returns their ids, in insertion order.
+     */
+    private long[] seed(int books) throws IOException, InterruptedException {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < books; i++) {
+            ndjson.append("{\"titulo\":\"Book title ").append(i)
+                  .append("\",\"autor\":\"Author ").append(i % 300)
+                  .append("\",\"editora\":\"Publisher ").append(i % 40)
+                  .append("\",\"anoLancamento\":").append(1950 + i % 75)
+                  .append(",\"estaDisponivel\":").append(i % 4 != 0)
+                  .append("}\n");
+        }
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(baseUri.resolve("books/batch"))
+                .header("Content-Type", BookResource.NDJSON)
+                .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+
+        JsonNode result = new ObjectMapper().readTree(response.body());
+        assertEquals(books, result.get("created").asInt());
+        long[] ids = new long[books];
+        int i = 0;
+        for (JsonNode item : result.get("items")) {
+            ids[i++] = item.get("id").asLong();
+        }
+        return ids;
+    }
+
+    private static Scenario pick(Random random, Map<Scenario, Integer> mix, int weights) {
+        int roll = random.nextInt(weights);
+        for (Map.Entry<Scenario, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        return Scenario.GET_BY_ID;
+    }
+
+    private void report(Run run, Duration duration) throws IOException {
+        Path dir = Path.of("target", "load", getClass().getSimpleName());
+        Files.createDirectories(dir);
+        System.out.printf("%-10s %9s %9s %9s %9s %9s%n", "scenario", "count", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Scenario scenario : Scenario.values()) {
+            Histogram histogram = run.latencies.get(scenario);
+            System.out.printf("%-10s %9d %9.1f %9.1f %9.1f %9.1f%n", key(scenario), histogram.getTotalCount(),
+                    histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(99) / 1e6,
+                    histogram.getValueAtPercentile(99.9) / 1e6, histogram.getMaxValue() / 1e6);
+            // Full distributions, in the format HdrHistogram plotters read
+            try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve(key(scenario) + ".hgrm")))) {
+                histogram.outputPercentileDistribution(out, 1e6);
+            }
+        }
+        System.out.printf("throughput %.0f req/s, %d errors%n",
+                run.completed.sum() / (duration.toNanos() / 1e9), run.errors.sum());
+    }
+
+    private static Properties loadBudget() throws IOException {
+        Properties budget = new Properties();
+        try (InputStream in = LoadTest.class.getResourceAsStream("/load-budget.properties")) {
+            budget.load(in);
+        }
+        for (String name : budget.stringPropertyNames()) {
+            String override = System.getProperty(name);
+            if (override != null) {
+                budget.setProperty(name, override);
+            }
+        }
+        return budget;
+    }
+
+    private static int intValue(Properties budget, String name) {
+        return Integer.parseInt(budget.getProperty(name).trim());
+    }
+
+    private static double doubleValue(Properties budget, String name) {
+        return Double.parseDouble(budget.getProperty(name).trim());
+    }
+
+    private static String key(Scenario scenario) {
+        return scenario.name().toLowerCase().replace('_', '-');
+    }
+
+    private static class Run {
+        final Map<Scenario, Histogram> latencies = new EnumMap<>(Scenario.class);
+        final LongAdder completed = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final ConcurrentLinkedQueue<Long> created = new ConcurrentLinkedQueue<>();
+
+        Run() {
+            for (Scenario scenario : Scenario.values()) {
+                // One hour at three significant digits, in nanoseconds
+                latencies.put(scenario, new ConcurrentHistogram(TimeUnit.HOURS.toNanos(1), 3));
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.acme;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+
+@QuarkusTest
+class RateLimitFilterTest {
+
+    @Test
+    void applicationBootsWithTheFilterInstalled() {
+        given()
+          .when().get("/hello")
+          .then()
+             .statusCode(200)
+             .header("X-RateLimit-Limit", is("10"))
+             .header("X-RateLimit-Remaining", notNullValue());
+    }
+}
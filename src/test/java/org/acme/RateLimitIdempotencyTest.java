@@ -0,0 +1,67 @@
+package org.acme;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@TestProfile(RateLimitIdempotencyTest.TightLimit.class)
+class RateLimitIdempotencyTest {
+
+    /**
+     * Two requests per four seconds, so the limit is hit quickly and refills within the test.
+     */
+    public static class TightLimit implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                "rate.limit.requests", "2",
+                "rate.limit.window.seconds", "4");
+        }
+    }
+
+    @Test
+    void retryAfterA429IsNotAnsweredWithThe429() throws Exception {
+        // Use up the bucket
+        Response rejected = null;
+        for (int i = 0; i < 10 && rejected == null; i++) {
+            Response response = post(UUID.randomUUID().toString());
+            if (response.statusCode() == 429) {
+                rejected = response;
+            }
+        }
+        assertTrue(rejected != null);
+
+        String key = UUID.randomUUID().toString();
+        Response limited = post(key);
+        assertEquals(429, limited.statusCode());
+
+        // Wait for the bucket, then the same key is processed for real
+        Thread.sleep(Long.parseLong(limited.header("Retry-After")) * 1000 + 100);
+        Response created = post(key);
+        assertEquals(201, created.statusCode());
+
+        Thread.sleep(Long.parseLong(created.header("X-RateLimit-Reset")) * 1000);
+        Response replayed = post(key);
+        assertEquals(201, replayed.statusCode());
+        assertEquals(created.jsonPath().getLong("id"), replayed.jsonPath().getLong("id"));
+    }
+
+    private static Response post(String idempotencyKey) {
+        return given()
+          .contentType("application/json")
+          .header("Idempotency-Key", idempotencyKey)
+          .body(Map.of("titulo", "Limited", "autor", "Someone", "editora", "Limit Press",
+              "anoLancamento", 2001, "estaDisponivel", true))
+          .when().post("/books");
+    }
+}
@@ -0,0 +1,148 @@
+package org.acme;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterServiceTest {
+
+    private static final int THREADS = 16;
+    private static final int CALLS_PER_THREAD = 200;
+
+    @Test
+    void hotKeyGrantsExactlyTheBurstUnderContention() throws InterruptedException {
+        RateLimiterService service = newService(10, 60);
+
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+        // Enough attempts to contend on the key; throughput is measured by RateLimiterBenchmark
+        for (int i = 0; i < THREADS; i++) {
+            pool.submit(() -> {
+                start.await();
+                for (int call = 0; call < CALLS_PER_THREAD; call++) {
+                    if (service.allowRequest("hot-key")) {
+                        allowed.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(10, allowed.get());
+    }
+
+    @Test
+    void costlyRequestsDrainTheBucketFaster() {
+        RateLimiterService service = newService(10, 60);
+        RateLimiterService.Limit limit = service.defaultLimit();
+
+        RateLimiterService.Decision first = service.tryAcquire("client", limit, 4);
+        assertTrue(first.allowed());
+        assertEquals(6, first.remaining());
+        assertTrue(service.tryAcquire("client", limit, 6).allowed());
+
+        RateLimiterService.Decision rejected = service.tryAcquire("client", limit, 1);
+        assertFalse(rejected.allowed());
+        assertEquals(0, rejected.remaining());
+        assertTrue(rejected.retryAfter() > 0);
+    }
+
+    @Test
+    void clientsDoNotShareBuckets() {
+        RateLimiterService service = newService(10, 60);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(service.allowRequest("client-a"));
+        }
+        assertFalse(service.allowRequest("client-a"));
+        assertTrue(service.allowRequest("client-b"));
+    }
+
+    @Test
+    void costlyRoutesDoNotStarveCheapOnes() {
+        RateLimiterService service = newService(10, 60, Map.of("BookResource.insertBatch", 5));
+
+        assertTrue(service.acquire("client", null, "BookResource.insertBatch").allowed());
+        assertTrue(service.acquire("client", null, "BookResource.insertBatch").allowed());
+        assertFalse(service.acquire("client", null, "BookResource.insertBatch").allowed());
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(service.acquire("client", null, i % 2 == 0 ? "BookResource.getAll" : "BookResource.getById").allowed());
+        }
+        assertFalse(service.acquire("client", null, "BookResource.getAll").allowed());
+    }
+
+    @Test
+    void routesOfTheSameCostDoNotShareABucket() {
+        RateLimiterService service = newService(10, 60, Map.of("BookResource.search", 5, "BookResource.insertBatch", 5));
+
+        assertTrue(service.acquire("client", null, "BookResource.search").allowed());
+        assertTrue(service.acquire("client", null, "BookResource.search").allowed());
+        assertFalse(service.acquire("client", null, "BookResource.search").allowed());
+        assertTrue(service.acquire("client", null, "BookResource.insertBatch").allowed());
+    }
+
+    @Test
+    void rejectsLimitsThatCannotGrantAnything() {
+        assertThrows(IllegalStateException.class, () -> newService(0, 60));
+        assertThrows(IllegalStateException.class, () -> newService(10, 0));
+    }
+
+    private static RateLimiterService newService(int requests, int windowSeconds) {
+        return newService(requests, windowSeconds, Map.of());
+    }
+
+    private static RateLimiterService newService(int requests, int windowSeconds, Map<String, Integer> costs) {
+        RateLimiterService service = new RateLimiterService();
+        service.config = new RateLimitConfig() {
+            @Override
+            public int requests() {
+                return requests;
+            }
+
+            @Override
+            public Window window() {
+                return () -> windowSeconds;
+            }
+
+            @Override
+            public Map<String, Integer> cost() {
+                return costs;
+            }
+
+            @Override
+            public Map<String, Tier> tier() {
+                return Map.of();
+            }
+
+            @Override
+            public Map<String, String> apiKeys() {
+                return Map.of();
+            }
+
+            @Override
+            public Optional<List<String>> trustedProxies() {
+                return Optional.empty();
+            }
+        };
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,84 @@
+package org.acme;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.RestAssured;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+
+@QuarkusTest
+@TestProfile(UnlimitedRateProfile.class)
+class ReactiveBookResourceTest {
+
+    // Unique per run, so the search only finds the books created here
+    private final String editora = "Reactive" + UUID.randomUUID().toString().replace("-", "");
+
+    @Test
+    void listKeepsNdjsonAndBinaryFormats() {
+        create("Reactive list");
+
+        given().accept(BookResource.NDJSON)
+          .when().get("/reactive/books")
+          .then()
+             .statusCode(200)
+             .contentType(startsWith(BookResource.NDJSON))
+             .body(containsString("\"titulo\":\"Reactive list\""));
+
+        given().accept(BookFormats.CBOR)
+          .when().get("/reactive/books")
+          .then()
+             .statusCode(200)
+             .contentType(startsWith(BookFormats.CBOR));
+    }
+
+    @Test
+    void searchKeepsBinaryFormats() {
+        create("Reactive search");
+
+        given().accept(BookFormats.PROTOBUF).queryParam("q", editora)
+          .when().get("/reactive/books/search")
+          .then()
+             .statusCode(200)
+             .contentType(startsWith(BookFormats.PROTOBUF));
+    }
+
+    @Test
+    void workerSeesTheRequestAndItsUriInfo() {
+        long id = create("Reactive worker");
+        String base = "http://localhost:" + RestAssured.port + "/";
+
+        // Both are offloaded: the links can only be built from the request's UriInfo
+        given().queryParam("q", editora)
+          .when().get("/reactive/books/search")
+          .then()
+             .statusCode(200)
+             .contentType(startsWith("application/json"))
+             .body("books[0].titulo", equalTo("Reactive worker"))
+             .body("books[0]._links.self", equalTo(base + "books/" + id));
+
+        given().accept(BookFormats.CBOR).queryParam("fields", "nope")
+          .when().get("/reactive/books")
+          .then()
+             .statusCode(400)
+             .contentType(startsWith("application/json"));
+    }
+
+    private long create(String titulo) {
+        return ((Number) given()
+          .contentType("application/json")
+          .body(Map.of("titulo", titulo, "autor", "Someone", "editora", editora,
+              "anoLancamento", 2010, "estaDisponivel", true))
+          .when().post("/reactive/books")
+          .then()
+             .statusCode(201)
+             .contentType(startsWith("application/json"))
+             .extract().path("id")).longValue();
+    }
+}
@@ -0,0 +1,81 @@
+package org.acme;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@TestProfile(SlowWriteTimeoutTest.ShortDeadline.class)
+class SlowWriteTimeoutTest {
+
+    /**
+     * One-second deadline, and H2 waiting for row locks well past it.
+     */
+    public static class ShortDeadline implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                "rate.limit.requests", "1000000000",
+                "quarkus.rest.timeout", "1",
+                "quarkus.datasource.jdbc.url", "jdbc:h2:mem:slowwrite;LOCK_TIMEOUT=10000");
+        }
+    }
+
+    @Inject
+    RequestDeadlines deadlines;
+
+    @Test
+    void writeBlockedPastTheDeadlineIsA504() throws Exception {
+        long id = ((Number) given()
+          .contentType("application/json")
+          .body(book("Slow write"))
+          .when().post("/books")
+          .then()
+             .statusCode(201)
+             .extract().path("id")).longValue();
+
+        // Another transaction holds the row lock for longer than the request may take
+        CountDownLatch locked = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() ->
+            QuarkusTransaction.requiringNew().run(() -> {
+                Book.findById(id, LockModeType.PESSIMISTIC_WRITE);
+                locked.countDown();
+                try {
+                    Thread.sleep(2500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        long before = deadlines.timedOut();
+        given()
+          .contentType("application/json")
+          .body(book("Too late"))
+          .when().put("/books/{id}", id)
+          .then()
+             .statusCode(504)
+             .body("error", equalTo("Request timeout"));
+        assertTrue(deadlines.timedOut() > before);
+
+        holder.get(10, TimeUnit.SECONDS);
+    }
+
+    private static Map<String, Object> book(String titulo) {
+        return Map.of("titulo", titulo, "autor", "Someone", "editora", "Slow Press",
+            "anoLancamento", 2001, "estaDisponivel", true);
+    }
+}
@@ -0,0 +1,175 @@
+package org.acme;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Cold start budget of the packaged application: time to the first successful request and
+ * resident memory right after it.
+ *
+ * Measures whatever the build just produced, as recorded in {@code quarkus-artifact.properties}:
+ * the fast-jar on a plain {@code mvn verify -Pstartup}, the native runner with {@code -Pnative}.
+ * Every run launches a fresh process on a free port and polls {@code GET /books}; the medians
+ * are written to {@code target/startup/} and compared with {@code startup-budget.properties}.
+ * RSS is read from {@code /proc}, so the memory budget is only checked on Linux.
+ */
+@Tag("startup")
+class StartupBudgetIT {
+
+    private static final Duration GIVE_UP = Duration.ofSeconds(60);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    @Test
+    void startsWithinBudget() throws Exception {
+        Path target = Path.of(System.getProperty("project.build.directory", "target"));
+        Properties artifact = load(target.resolve("quarkus-artifact.properties"));
+        boolean nativeImage = "native".equals(artifact.getProperty("type"));
+        Path path = target.resolve(artifact.getProperty("path"));
+        String mode = nativeImage ? "native" : "jvm";
+
+        Properties budget = loadBudget();
+        int runs = Integer.parseInt(budget.getProperty("startup.runs"));
+        long[] millis = new long[runs];
+        long[] rssKb = new long[runs];
+        Path logs = Files.createDirectories(target.resolve("startup"));
+        for (int i = 0; i < runs; i++) {
+            long[] sample = launch(nativeImage, path, logs.resolve(mode + "-" + i + ".log"));
+            millis[i] = sample[0];
+            rssKb[i] = sample[1];
+        }
+
+        long medianMillis = median(millis);
+        long medianRssMb = median(rssKb) / 1024;
+        try (Writer out = Files.newBufferedWriter(logs.resolve(mode + ".properties"))) {
+            out.write("first-request-millis=" + medianMillis + "\n");
+            out.write("rss-mb=" + medianRssMb + "\n");
+            out.write("runs.first-request-millis=" + Arrays.toString(millis) + "\n");
+            out.write("runs.rss-kb=" + Arrays.toString(rssKb) + "\n");
+        }
+        System.out.printf("%s startup: first request after %d ms, %d MB RSS (median of %d)%n",
+                mode, medianMillis, medianRssMb, runs);
+
+        long millisBudget = Long.parseLong(budget.getProperty("startup.budget." + mode + ".first-request-millis"));
+        assertTrue(medianMillis <= millisBudget,
+                String.format("%s first request after %d ms, budget is %d ms", mode, medianMillis, millisBudget));
+        assumeTrue(rssKb[0] > 0, "RSS is not available on this platform");
+        long rssBudget = Long.parseLong(budget.getProperty("startup.budget." + mode + ".rss-mb"));
+        assertTrue(medianRssMb <= rssBudget,
+                String.format("%s RSS %d MB, budget is %d MB", mode, medianRssMb, rssBudget));
+    }
+
+    /**
+     * @return milliseconds to the first 200 and the RSS in kB right after it (0 when unknown)
+     */
+    private long[] launch(boolean nativeImage, Path artifact, Path log) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        if (!nativeImage) {
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        }
+        command.add("-Dquarkus.http.port=" + port);
+        command.add("-Dquarkus.http.host=127.0.0.1");
+        if (!nativeImage) {
+            command.add("-jar");
+        }
+        command.add(artifact.toAbsolutePath().toString());
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/books"))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            while (System.nanoTime() - start < GIVE_UP.toNanos()) {
+                if (!process.isAlive()) {
+                    fail("Application exited with " + process.exitValue() + ", see " + log);
+                }
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 200) {
+                        long millis = (System.nanoTime() - start) / 1_000_000;
+                        return new long[]{millis, rssKb(process.pid())};
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(5);
+            }
+            return fail("No successful request within " + GIVE_UP + ", see " + log);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static long rssKb(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) {
+            return 0;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", ""));
+            }
+        }
+        return 0;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static Properties load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    private static Properties loadBudget() throws IOException {
+        Properties budget = new Properties();
+        try (InputStream in = StartupBudgetIT.class.getResourceAsStream("/startup-budget.properties")) {
+            budget.load(in);
+        }
+        for (String name : budget.stringPropertyNames()) {
+            String override = System.getProperty(name);
+            if (override != null) {
+                budget.setProperty(name, override);
+            }
+        }
+        return budget;
+    }
+}
@@ -0,0 +1,17 @@
+package org.acme;
+
+import io.quarkus.test.junit.QuarkusTestProfile;
+
+import java.util.Map;
+
+/**
+ * Lifts the rate limit for tests that drive load; the default (10 per minute) would reject
+ * almost everything.
+ */
+public class UnlimitedRateProfile implements QuarkusTestProfile {
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+        return Map.of("rate.limit.requests", "1000000000");
+    }
+}
@@ -0,0 +1,156 @@
+package org.acme;
+
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Worker pool vs. virtual threads (and the reactive variant) under 1k concurrent connections.
+ *
+ * Every client alternates a slow search (a two-letter query matching nothing, so a full LIKE scan) with a
+ * {@code getById}; the interesting figure is how far {@code getById} latency climbs while
+ * the searches hold threads. Run with {@code mvn test -Pbenchmark}.
+ */
+@QuarkusTest
+@Tag("benchmark")
+@TestProfile(UnlimitedRateProfile.class)
+class VirtualThreadBenchmarkTest {
+
+    private static final int CONNECTIONS = 1000;
+    private static final int SEED_BOOKS = 20_000;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASURE = Duration.ofSeconds(20);
+
+    @TestHTTPResource("/")
+    URI baseUri;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @Test
+    void compareWorkerPoolAndVirtualThreads() throws Exception {
+        seed();
+
+        run("books", WARMUP);
+        Result workers = run("books", MEASURE);
+        run("vt/books", WARMUP);
+        Result virtual = run("vt/books", MEASURE);
+        run("reactive/books", WARMUP);
+        Result reactive = run("reactive/books", MEASURE);
+
+        System.out.printf("%-14s %10s %10s %12s %12s %8s%n", "mode", "req/s", "search/s", "byId p50", "byId p99", "errors");
+        workers.print("worker pool");
+        virtual.print("virtual");
+        reactive.print("reactive");
+
+        assertTrue(workers.requests > 0 && virtual.requests > 0 && reactive.requests > 0);
+    }
+
+    private void seed() throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < SEED_BOOKS; i++) {
+            ndjson.append("{\"titulo\":\"Benchmark book ").append(i)
+                  .append("\",\"autor\":\"Author ").append(i % 500)
+                  .append("\",\"editora\":\"Publisher ").append(i % 50)
+                  .append("\",\"anoLancamento\":").append(1950 + i % 75)
+                  .append(",\"estaDisponivel\":true}\n");
+        }
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(baseUri.resolve("books/batch"))
+                .header("Content-Type", BookResource.NDJSON)
+                .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+    }
+
+    private Result run(String prefix, Duration duration) throws Exception {
+        URI search = baseUri.resolve(prefix + "/search?q=zq&size=50&total=none");
+        URI byId = baseUri.resolve(prefix + "/1");
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        LongAdder searches = new LongAdder();
+        LongAdder errors = new LongAdder();
+        List<Future<long[]>> clients = new ArrayList<>(CONNECTIONS);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CONNECTIONS; i++) {
+                clients.add(pool.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        if (!send(search)) {
+                            errors.increment();
+                        }
+                        searches.increment();
+
+                        long start = System.nanoTime();
+                        if (!send(byId)) {
+                            errors.increment();
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+
+        long[] all = clients.stream().map(VirtualThreadBenchmarkTest::join).flatMapToLong(Arrays::stream).sorted().toArray();
+        double seconds = duration.toNanos() / 1e9;
+        return new Result((all.length + searches.sum()) / seconds, searches.sum() / seconds,
+                percentile(all, 0.50), percentile(all, 0.99), errors.sum(), all.length + searches.sum());
+    }
+
+    private boolean send(URI uri) {
+        try {
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() == 200;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static long[] join(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            return new long[0];
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+
+    private record Result(double throughput, double searchThroughput, double p50Millis, double p99Millis,
+                          long errors, long requests) {
+        void print(String mode) {
+            System.out.printf("%-14s %10.0f %10.0f %10.2fms %10.2fms %8d%n",
+                    mode, throughput, searchThroughput, p50Millis, p99Millis, errors);
+        }
+    }
+}